@@ -1,6 +1,7 @@
 module wtf.reversed.toolbox {
-    requires static java.compiler;  // Required for WrapperGenerator
+    requires static java.compiler;  // Required for StructProcessor
     requires static org.tukaani.xz; // Required for LZMADecompressor
+    requires jdk.jfr;               // Required for SourceReadEvent
 
     exports wtf.reversed.toolbox.collect;
     exports wtf.reversed.toolbox.compress;
@@ -9,4 +10,6 @@ module wtf.reversed.toolbox {
     exports wtf.reversed.toolbox.math;
     exports wtf.reversed.toolbox.type;
     exports wtf.reversed.toolbox.util;
+
+    provides javax.annotation.processing.Processor with wtf.reversed.toolbox.processor.StructProcessor;
 }
@@ -0,0 +1,60 @@
+package wtf.reversed.toolbox.compress;
+
+import wtf.reversed.toolbox.collect.*;
+import wtf.reversed.toolbox.util.*;
+
+import java.io.*;
+
+public sealed interface Compressor
+    permits LZ4BlockCompressor, LZ4FrameCompressor {
+
+    /**
+     * Returns the fast LZ4 block compressor, the counterpart of {@link Decompressor#lz4Block()}.
+     */
+    static Compressor lz4Block() {
+        return LZ4BlockCompressor.FAST;
+    }
+
+    /**
+     * Returns a high compression LZ4 block compressor. The level goes from 1 to 12, and doubles the number of match
+     * candidates considered at every position with each step.
+     */
+    static Compressor lz4BlockHC(int level) {
+        Check.argument(level >= 1 && level <= 12, () -> "level must be between 1 and 12, but was " + level);
+        return new LZ4BlockCompressor(level);
+    }
+
+    /**
+     * Returns an LZ4 frame compressor with 4 MiB independent blocks, the content size and a content checksum,
+     * using the fast block compressor.
+     */
+    static Compressor lz4Frame() {
+        return LZ4FrameCompressor.DEFAULT;
+    }
+
+    /**
+     * Returns an LZ4 frame compressor with 4 MiB independent blocks, the content size and a content checksum, and
+     * optionally a checksum per block. Level 0 uses the fast block compressor, 1 to 12 the high compression one, as
+     * in {@link #lz4BlockHC(int)}.
+     */
+    static Compressor lz4Frame(int level, boolean blockChecksum) {
+        Check.argument(level >= 0 && level <= 12, () -> "level must be between 0 and 12, but was " + level);
+        return new LZ4FrameCompressor(level == 0 ? LZ4BlockCompressor.FAST : new LZ4BlockCompressor(level), blockChecksum);
+    }
+
+    /**
+     * Returns the largest possible compressed size of {@code length} bytes.
+     */
+    int maxCompressedLength(int length);
+
+    /**
+     * Compresses {@code src} into {@code dst}, which has to be at least {@link #maxCompressedLength(int)} long, and
+     * returns the compressed size.
+     */
+    int compress(Bytes src, Bytes.Mutable dst) throws IOException;
+
+    default Bytes compress(Bytes src) throws IOException {
+        var dst = Bytes.allocate(maxCompressedLength(src.length()));
+        return dst.slice(0, compress(src, dst));
+    }
+}
@@ -1,9 +1,12 @@
 package wtf.reversed.toolbox.compress;
 
 import wtf.reversed.toolbox.collect.*;
+import wtf.reversed.toolbox.util.*;
 
 import java.io.*;
+import java.lang.foreign.*;
 import java.nio.file.*;
+import java.util.*;
 
 public sealed interface Decompressor
     permits DeflateDecompressor, FastLZDecompressor, LZ4BlockDecompressor, LZ4FrameDecompressor, LZMADecompressor, NoneDecompressor, OodleDecompressor {
@@ -20,10 +23,34 @@ public sealed interface Decompressor
         return LZ4BlockDecompressor.INSTANCE;
     }
 
+    /**
+     * Returns an LZ4 block decompressor where matches can reach back into the last 64 KiB of {@code dictionary},
+     * as if it came right before the output.
+     */
+    static Decompressor lz4Block(Bytes dictionary) {
+        return LZ4BlockDecompressor.withDictionary(Check.nonNull(dictionary, "dictionary"));
+    }
+
     static Decompressor lz4Frame() {
         return LZ4FrameDecompressor.INSTANCE;
     }
 
+    /**
+     * Returns an LZ4 frame decompressor that, if {@code parallel} is set, decodes frames with independent blocks
+     * on the common fork-join pool. Frames with linked blocks are always decoded sequentially.
+     */
+    static Decompressor lz4Frame(boolean parallel) {
+        return parallel ? LZ4FrameDecompressor.PARALLEL : LZ4FrameDecompressor.INSTANCE;
+    }
+
+    /**
+     * Returns an LZ4 frame decompressor that looks up the dictionary of frames that have a dictionary ID in
+     * {@code dictionaries}. Frames with an unknown dictionary ID fail to decompress.
+     */
+    static Decompressor lz4Frame(boolean parallel, Map<Integer, Bytes> dictionaries) {
+        return LZ4FrameDecompressor.withDictionaries(parallel, Check.nonNull(dictionaries, "dictionaries"));
+    }
+
     static Decompressor lzma() {
         return LZMADecompressor.INSTANCE;
     }
@@ -44,6 +71,29 @@ public sealed interface Decompressor
         return dst;
     }
 
+    /**
+     * Returns a stream of the {@code size} decompressed bytes of {@code src}. Formats that can be decoded
+     * incrementally do so as the stream is read, others decompress everything up front. Closing the returned
+     * stream closes {@code src}.
+     */
+    default InputStream decompress(InputStream src, long size) throws IOException {
+        try (src) {
+            Check.argument(size <= Integer.MAX_VALUE, () -> "Size too large to decompress in memory: " + size);
+            return decompress(Bytes.wrap(src.readAllBytes()), (int) size).asInputStream();
+        }
+    }
+
+    /**
+     * Decompresses {@code src} into all of {@code dst}. Decompressors that call into native code use native and
+     * mapped segments directly, others go through a heap copy.
+     */
+    default void decompress(MemorySegment src, MemorySegment dst) throws IOException {
+        Check.argument(src.byteSize() <= Integer.MAX_VALUE, () -> "Source too large to decompress in memory: " + src.byteSize());
+        Check.argument(dst.byteSize() <= Integer.MAX_VALUE, () -> "Target too large to decompress in memory: " + dst.byteSize());
+        var result = decompress(Bytes.wrap(src.toArray(ValueLayout.JAVA_BYTE)), (int) dst.byteSize());
+        dst.copyFrom(MemorySegment.ofBuffer(result.asBuffer()));
+    }
+
     default void decompress(byte[] src, int srcLen, byte[] dst, int dstLen) throws IOException {
         decompress(src, 0, srcLen, dst, 0, dstLen);
     }
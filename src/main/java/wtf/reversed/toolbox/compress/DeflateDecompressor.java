@@ -31,5 +31,22 @@ final class DeflateDecompressor implements Decompressor {
                 }
             }
         }
+        if (dstBuffer.hasRemaining()) {
+            throw new EOFException("Unexpected end of compressed data, expected " + dst.length() + " bytes, got " + dstBuffer.position());
+        }
+    }
+
+    @Override
+    public InputStream decompress(InputStream src, long size) {
+        return new InflaterInputStream(src, new Inflater(nowrap)) {
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    inf.end();
+                }
+            }
+        };
     }
 }
@@ -0,0 +1,205 @@
+package wtf.reversed.toolbox.compress;
+
+import wtf.reversed.toolbox.collect.*;
+import wtf.reversed.toolbox.util.*;
+
+import java.util.*;
+
+final class LZ4BlockCompressor implements Compressor {
+    static final LZ4BlockCompressor FAST = new LZ4BlockCompressor(0);
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5; // The last 5 bytes are always literals
+    private static final int MF_LIMIT = 12; // The last match must start at least 12 bytes before the end
+    private static final int MAX_DISTANCE = 0xFFFF;
+
+    private static final int FAST_HASH_LOG = 12;
+    private static final int HC_HASH_LOG = 15;
+
+    // Match finder state, reused across calls, so compressing doesn't allocate
+    private static final ThreadLocal<int[]> FAST_TABLE = ThreadLocal.withInitial(() -> new int[1 << FAST_HASH_LOG]);
+    private static final ThreadLocal<int[]> HC_HEAD = ThreadLocal.withInitial(() -> new int[1 << HC_HASH_LOG]);
+    private static final ThreadLocal<int[]> HC_CHAIN = ThreadLocal.withInitial(() -> new int[MAX_DISTANCE + 1]);
+
+    private final int level;
+
+    LZ4BlockCompressor(int level) {
+        this.level = level;
+    }
+
+    @Override
+    public int maxCompressedLength(int length) {
+        Check.positiveOrZero(length, "length");
+        return length + length / 255 + 16;
+    }
+
+    @Override
+    public int compress(Bytes src, Bytes.Mutable dst) {
+        Check.argument(dst.length() >= maxCompressedLength(src.length()), "dst is too small");
+        return compress(src, dst, 0);
+    }
+
+    /**
+     * Compresses {@code src} into {@code dst} at {@code dstOffset}, and returns the compressed size.
+     */
+    int compress(Bytes src, Bytes.Mutable dst, int dstOffset) {
+        return level == 0
+            ? compressFast(src, dst, dstOffset)
+            : compressHC(src, dst, dstOffset, 1 << (level - 1));
+    }
+
+    private static int compressFast(Bytes src, Bytes.Mutable dst, int dstOffset) {
+        int srcLength = src.length();
+        int anchor = 0;
+        int dstOff = dstOffset;
+
+        if (srcLength >= MF_LIMIT + 1) {
+            int[] table = FAST_TABLE.get();
+            Arrays.fill(table, -1);
+
+            int matchLimit = srcLength - LAST_LITERALS;
+            int pos = 0;
+            while (pos <= srcLength - MF_LIMIT) {
+                int sequence = src.getInt(pos);
+                int hash = hash(sequence, FAST_HASH_LOG);
+                int ref = table[hash];
+                table[hash] = pos;
+
+                if (ref < 0 || pos - ref > MAX_DISTANCE || src.getInt(ref) != sequence) {
+                    // Skip faster through data that doesn't compress
+                    pos += 1 + ((pos - anchor) >>> 6);
+                    continue;
+                }
+
+                // Extend the match backward into the pending literals, and then forward
+                while (pos > anchor && ref > 0 && src.get(pos - 1) == src.get(ref - 1)) {
+                    pos--;
+                    ref--;
+                }
+                int matchLength = MIN_MATCH + matchLength(src, ref + MIN_MATCH, pos + MIN_MATCH, matchLimit);
+
+                dstOff = writeSequence(src, anchor, pos - anchor, pos - ref, matchLength, dst, dstOff);
+                pos += matchLength;
+                anchor = pos;
+
+                // Remember a position inside the match, which helps with repetitive data
+                if (pos <= srcLength - MF_LIMIT) {
+                    table[hash(src.getInt(pos - 2), FAST_HASH_LOG)] = pos - 2;
+                }
+            }
+        }
+
+        return writeLastLiterals(src, anchor, srcLength - anchor, dst, dstOff) - dstOffset;
+    }
+
+    private static int compressHC(Bytes src, Bytes.Mutable dst, int dstOffset, int maxAttempts) {
+        int srcLength = src.length();
+        int anchor = 0;
+        int dstOff = dstOffset;
+
+        if (srcLength >= MF_LIMIT + 1) {
+            int[] head = HC_HEAD.get();
+            int[] chain = HC_CHAIN.get();
+            Arrays.fill(head, -1);
+
+            int matchLimit = srcLength - LAST_LITERALS;
+            int nextToInsert = 0;
+            int pos = 0;
+            while (pos <= srcLength - MF_LIMIT) {
+                // Insert every position up to here into the hash chains
+                for (; nextToInsert <= pos; nextToInsert++) {
+                    int hash = hash(src.getInt(nextToInsert), HC_HASH_LOG);
+                    chain[nextToInsert & MAX_DISTANCE] = head[hash];
+                    head[hash] = nextToInsert;
+                }
+
+                // Walk the chain, and keep the longest match
+                int sequence = src.getInt(pos);
+                int bestLength = 0;
+                int bestRef = -1;
+                int ref = chain[pos & MAX_DISTANCE];
+                for (int attempts = maxAttempts; ref >= 0 && pos - ref <= MAX_DISTANCE && attempts > 0; attempts--) {
+                    if (src.getInt(ref) == sequence) {
+                        int length = MIN_MATCH + matchLength(src, ref + MIN_MATCH, pos + MIN_MATCH, matchLimit);
+                        if (length > bestLength) {
+                            bestLength = length;
+                            bestRef = ref;
+                        }
+                    }
+                    ref = chain[ref & MAX_DISTANCE];
+                }
+
+                if (bestRef < 0) {
+                    pos++;
+                    continue;
+                }
+
+                // A candidate that ran out of attempts earlier can still start before here, so extend it backward
+                while (pos > anchor && bestRef > 0 && src.get(pos - 1) == src.get(bestRef - 1)) {
+                    pos--;
+                    bestRef--;
+                    bestLength++;
+                }
+
+                dstOff = writeSequence(src, anchor, pos - anchor, pos - bestRef, bestLength, dst, dstOff);
+                pos += bestLength;
+                anchor = pos;
+            }
+        }
+
+        return writeLastLiterals(src, anchor, srcLength - anchor, dst, dstOff) - dstOffset;
+    }
+
+    private static int matchLength(Bytes src, int ref, int pos, int limit) {
+        int start = pos;
+        while (pos <= limit - Long.BYTES) {
+            long diff = src.getLong(ref) ^ src.getLong(pos);
+            if (diff != 0) {
+                return pos - start + (Long.numberOfTrailingZeros(diff) >>> 3);
+            }
+            pos += Long.BYTES;
+            ref += Long.BYTES;
+        }
+        while (pos < limit && src.get(ref) == src.get(pos)) {
+            pos++;
+            ref++;
+        }
+        return pos - start;
+    }
+
+    private static int writeSequence(Bytes src, int literalOffset, int literalLength, int offset, int matchLength, Bytes.Mutable dst, int dstOff) {
+        int tokenOff = dstOff++;
+        int matchCode = matchLength - MIN_MATCH;
+        dst.set(tokenOff, (byte) (Math.min(literalLength, 15) << 4 | Math.min(matchCode, 15)));
+
+        dstOff = writeLength(literalLength, dst, dstOff);
+        src.slice(literalOffset, literalLength).copyTo(dst, dstOff);
+        dstOff += literalLength;
+
+        dst.setShort(dstOff, (short) offset);
+        dstOff += Short.BYTES;
+        return writeLength(matchCode, dst, dstOff);
+    }
+
+    private static int writeLastLiterals(Bytes src, int literalOffset, int literalLength, Bytes.Mutable dst, int dstOff) {
+        dst.set(dstOff++, (byte) (Math.min(literalLength, 15) << 4));
+        dstOff = writeLength(literalLength, dst, dstOff);
+        src.slice(literalOffset, literalLength).copyTo(dst, dstOff);
+        return dstOff + literalLength;
+    }
+
+    private static int writeLength(int length, Bytes.Mutable dst, int dstOff) {
+        if (length < 15) {
+            return dstOff;
+        }
+        for (length -= 15; length >= 255; length -= 255) {
+            dst.set(dstOff++, (byte) 255);
+        }
+        dst.set(dstOff++, (byte) length);
+        return dstOff;
+    }
+
+    private static int hash(int sequence, int log) {
+        return (sequence * -1640531535) >>> (Integer.SIZE - log);
+    }
+}
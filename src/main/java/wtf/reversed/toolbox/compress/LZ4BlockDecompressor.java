@@ -3,19 +3,45 @@ package wtf.reversed.toolbox.compress;
 import wtf.reversed.toolbox.collect.*;
 
 import java.io.*;
+import java.lang.invoke.*;
+import java.nio.*;
+import java.util.*;
 
 final class LZ4BlockDecompressor implements Decompressor {
-    static LZ4BlockDecompressor INSTANCE = new LZ4BlockDecompressor();
+    static LZ4BlockDecompressor INSTANCE = new LZ4BlockDecompressor(Bytes.empty());
 
-    private LZ4BlockDecompressor() {
+    private static final int MAX_DISTANCE = 64 * 1024;
+    private static final VarHandle LONG = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+    private static final int WILD_COPY = 16;
+    private static final int WILD_MATCH = 32;
+
+    private final Bytes dictionary;
+
+    private LZ4BlockDecompressor(Bytes dictionary) {
+        this.dictionary = dictionary;
+    }
+
+    static LZ4BlockDecompressor withDictionary(Bytes dictionary) {
+        return new LZ4BlockDecompressor(window(dictionary));
     }
 
     @Override
     public void decompress(Bytes src, Bytes.Mutable dst) throws IOException {
-        decompress(src, dst, 0);
+        int decompressed = decompress(src, dst, 0, dictionary);
+        if (decompressed != dst.length()) {
+            throw new EOFException("Unexpected end of compressed data, expected " + dst.length() + " bytes, got " + decompressed);
+        }
     }
 
     static int decompress(Bytes src, Bytes.Mutable dst, int dstOffset) throws IOException {
+        return decompress(src, dst, dstOffset, Bytes.empty());
+    }
+
+    /**
+     * Decodes a block into {@code dst} at {@code dstOffset}. Matches can reach back to the start of {@code dst}, and
+     * from there on into the end of {@code dictionary}.
+     */
+    static int decompress(Bytes src, Bytes.Mutable dst, int dstOffset, Bytes dictionary) throws IOException {
         // Special case
         if (dst.length() == 0) {
             if (src.length() != 1 || src.get(0) != 0) {
@@ -24,34 +50,62 @@ final class LZ4BlockDecompressor implements Decompressor {
             return 0;
         }
 
+        // Work on the backing array directly, and check the bounds once per sequence instead of once per access
+        var in = src.asBuffer().order(ByteOrder.nativeOrder());
+        var dstBuffer = dst.asMutableBuffer();
+        byte[] out = dstBuffer.array();
+        int dstStart = dstBuffer.arrayOffset() + dstBuffer.position();
+        int dstEnd = dstStart + dst.length();
+
         int srcOff = 0;
-        int dstOff = dstOffset;
+        int srcEnd = src.length();
+        int dstOff = dstStart + dstOffset;
         while (true) {
-            int token = src.get(srcOff++);
+            // A block never ends on a match, so there's always a token left here
+            if (srcOff >= srcEnd) {
+                throw new IOException("Malformed input: missing last literals");
+            }
+            int token = in.get(srcOff++) & 0xFF;
 
             // Get the literal len
-            int literalLength = (token >>> 4) & 0x0F;
-            if (literalLength != 0) {
-                if (literalLength == 15) {
-                    int temp;
-                    do {
-                        temp = src.getUnsigned(srcOff++);
-                        literalLength += temp;
-                    } while (temp == 255);
-                }
-
-                // Copy the literal over
-                LZUtils.copyLiteral(src, srcOff, dst, dstOff, literalLength);
-                srcOff += literalLength;
-                dstOff += literalLength;
+            int literalLength = token >>> 4;
+            if (literalLength == 15) {
+                int temp;
+                do {
+                    if (srcOff >= srcEnd) {
+                        throw new IOException("Malformed input: literal length runs past the end");
+                    }
+                    temp = in.get(srcOff++) & 0xFF;
+                    literalLength += temp;
+                    // Checked on every byte, so a long run can't overflow the length
+                    if (literalLength > srcEnd - srcOff || literalLength > dstEnd - dstOff) {
+                        throw new IOException("Malformed input: literals run past the end");
+                    }
+                } while (temp == 255);
+            }
+            if (literalLength > srcEnd - srcOff || literalLength > dstEnd - dstOff) {
+                throw new IOException("Malformed input: literals run past the end");
             }
 
+            // Copy the literal over, short ones with two unconditional 8-byte moves if there's room
+            if (literalLength <= WILD_COPY && srcEnd - srcOff >= WILD_COPY && dstEnd - dstOff >= WILD_COPY) {
+                LONG.set(out, dstOff, in.getLong(srcOff));
+                LONG.set(out, dstOff + 8, in.getLong(srcOff + 8));
+            } else {
+                in.get(srcOff, out, dstOff, literalLength);
+            }
+            srcOff += literalLength;
+            dstOff += literalLength;
+
             // End of input check
-            if (srcOff >= src.length()) {
-                return dstOff - dstOffset;
+            if (srcOff >= srcEnd) {
+                return dstOff - dstStart - dstOffset;
             }
 
             // Get the match position, can't start before the output start
+            if (srcEnd - srcOff < 2) {
+                throw new IOException("Malformed input: truncated match offset");
+            }
             int offset = src.getUnsignedShort(srcOff);
             srcOff += 2;
 
@@ -60,15 +114,66 @@ final class LZ4BlockDecompressor implements Decompressor {
             if (matchLength == 15) {
                 int temp;
                 do {
-                    temp = src.getUnsigned(srcOff++);
+                    if (srcOff >= srcEnd) {
+                        throw new IOException("Malformed input: match length runs past the end");
+                    }
+                    temp = in.get(srcOff++) & 0xFF;
                     matchLength += temp;
+                    // Checked on every byte, so a long run can't overflow the length
+                    if (matchLength > dstEnd - dstOff) {
+                        throw new IOException("Malformed input: match runs past the end");
+                    }
                 } while (temp == 255);
             }
             matchLength += 4;
 
+            int matchOff = dstOff - offset;
+            if (offset == 0 || dstStart - matchOff > dictionary.length()) {
+                throw new IOException("Match before start");
+            }
             // Can't copy past the end of the output
-            LZUtils.copyReference(dst, dstOff, offset, matchLength);
+            if (matchLength > dstEnd - dstOff) {
+                throw new IOException("Malformed input: match runs past the end");
+            }
+
+            // The start of the match can come from the dictionary, the rest continues in the output
+            if (matchOff < dstStart) {
+                int back = dstStart - matchOff;
+                int count = Math.min(back, matchLength);
+                dictionary.slice(dictionary.length() - back, count).copyTo(dst, dstOff - dstStart);
+                dstOff += count;
+                matchLength -= count;
+                matchOff = dstStart;
+            }
+            copyMatch(out, matchOff, dstOff, matchLength, dstEnd);
             dstOff += matchLength;
         }
     }
+
+    private static void copyMatch(byte[] out, int matchOff, int dstOff, int length, int dstEnd) {
+        int offset = dstOff - matchOff;
+        if (offset >= Long.BYTES && length <= WILD_MATCH && dstEnd - dstOff >= WILD_MATCH) {
+            // Every 8-byte read comes from bytes that are already written, so we can overshoot the match a bit
+            for (int i = 0; i < length; i += Long.BYTES) {
+                LONG.set(out, dstOff + i, (long) LONG.get(out, matchOff + i));
+            }
+        } else if (offset >= length) {
+            System.arraycopy(out, matchOff, out, dstOff, length);
+        } else if (offset == 1) {
+            Arrays.fill(out, dstOff, dstOff + length, out[matchOff]);
+        } else {
+            // Overlapping, so the pattern doubles in size with every copy
+            System.arraycopy(out, matchOff, out, dstOff, offset);
+            for (int copied = offset; copied < length; copied += copied) {
+                System.arraycopy(out, dstOff, out, dstOff + copied, Math.min(copied, length - copied));
+            }
+        }
+    }
+
+    /**
+     * Matches can't reach back further than 64 KiB, so that's all of a dictionary that's ever used.
+     */
+    static Bytes window(Bytes dictionary) {
+        return dictionary.slice(Math.max(0, dictionary.length() - MAX_DISTANCE));
+    }
 }
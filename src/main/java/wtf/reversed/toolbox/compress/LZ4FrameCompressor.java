@@ -0,0 +1,84 @@
+package wtf.reversed.toolbox.compress;
+
+import wtf.reversed.toolbox.collect.*;
+import wtf.reversed.toolbox.hash.*;
+import wtf.reversed.toolbox.util.*;
+
+final class LZ4FrameCompressor implements Compressor {
+    static final LZ4FrameCompressor DEFAULT = new LZ4FrameCompressor(LZ4BlockCompressor.FAST, false);
+
+    private static final HashFunction HASH = HashFunction.xxHash32(0);
+    private static final int MAGIC = 0x184D2204;
+    private static final int BLOCK_SIZE = 4 * 1024 * 1024;
+    private static final int BLOCK_SIZE_CODE = 7;
+    private static final int HEADER_SIZE = 4 + 2 + 8 + 1;
+
+    // FLG bits, matching the flags the frame decompressor understands
+    private static final int VERSION = 0x40;
+    private static final int BLOCK_INDEPENDENCE = 1 << 5;
+    private static final int BLOCK_CHECKSUM = 1 << 4;
+    private static final int CONTENT_SIZE = 1 << 3;
+    private static final int CONTENT_CHECKSUM = 1 << 2;
+
+    private final LZ4BlockCompressor blockCompressor;
+    private final boolean blockChecksum;
+
+    LZ4FrameCompressor(LZ4BlockCompressor blockCompressor, boolean blockChecksum) {
+        this.blockCompressor = blockCompressor;
+        this.blockChecksum = blockChecksum;
+    }
+
+    @Override
+    public int maxCompressedLength(int length) {
+        Check.positiveOrZero(length, "length");
+
+        // Blocks that don't compress are stored as is, but we need room to try first
+        long blocks = Math.ceilDiv(length, BLOCK_SIZE);
+        long blockOverhead = Integer.BYTES + (blockChecksum ? Integer.BYTES : 0);
+        long result = HEADER_SIZE
+            + blocks * blockOverhead
+            + (length - Math.min(length, BLOCK_SIZE))
+            + blockCompressor.maxCompressedLength(Math.min(length, BLOCK_SIZE))
+            + Integer.BYTES // End mark
+            + Integer.BYTES; // Content checksum
+        return Math.toIntExact(result);
+    }
+
+    @Override
+    public int compress(Bytes src, Bytes.Mutable dst) {
+        Check.argument(dst.length() >= maxCompressedLength(src.length()), "dst is too small");
+
+        int flags = VERSION | BLOCK_INDEPENDENCE | CONTENT_SIZE | CONTENT_CHECKSUM | (blockChecksum ? BLOCK_CHECKSUM : 0);
+        dst.setInt(0, MAGIC);
+        dst.set(4, (byte) flags);
+        dst.set(5, (byte) (BLOCK_SIZE_CODE << 4));
+        dst.setLong(6, src.length());
+        dst.set(14, (byte) (HASH.hash(dst.slice(4, 10)).asInt() >> 8));
+        int dstOff = HEADER_SIZE;
+
+        for (int srcOff = 0; srcOff < src.length(); srcOff += BLOCK_SIZE) {
+            var block = src.slice(srcOff, Math.min(BLOCK_SIZE, src.length() - srcOff));
+            int dataOff = dstOff + Integer.BYTES;
+            int size = blockCompressor.compress(block, dst, dataOff);
+
+            // Store the block as is if compressing it didn't help
+            if (size >= block.length()) {
+                block.copyTo(dst, dataOff);
+                size = block.length();
+                dst.setInt(dstOff, size | 0x8000_0000);
+            } else {
+                dst.setInt(dstOff, size);
+            }
+            dstOff = dataOff + size;
+
+            if (blockChecksum) {
+                dst.setInt(dstOff, HASH.hash(dst.slice(dataOff, size)).asInt());
+                dstOff += Integer.BYTES;
+            }
+        }
+
+        dst.setInt(dstOff, 0);
+        dst.setInt(dstOff + 4, HASH.hash(src).asInt());
+        return dstOff + 8;
+    }
+}
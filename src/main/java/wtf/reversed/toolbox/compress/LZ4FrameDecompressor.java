@@ -6,22 +6,78 @@ import wtf.reversed.toolbox.util.*;
 
 import java.io.*;
 import java.util.*;
+import java.util.stream.*;
 
 final class LZ4FrameDecompressor implements Decompressor {
     private static final HashFunction HASH = HashFunction.xxHash32(0);
-    static final LZ4FrameDecompressor INSTANCE = new LZ4FrameDecompressor();
+    static final LZ4FrameDecompressor INSTANCE = new LZ4FrameDecompressor(false, Map.of());
+    static final LZ4FrameDecompressor PARALLEL = new LZ4FrameDecompressor(true, Map.of());
 
-    private LZ4FrameDecompressor() {
+    private final boolean parallel;
+    private final Map<Integer, Bytes> dictionaries;
+
+    private LZ4FrameDecompressor(boolean parallel, Map<Integer, Bytes> dictionaries) {
+        this.parallel = parallel;
+        this.dictionaries = dictionaries;
+    }
+
+    static LZ4FrameDecompressor withDictionaries(boolean parallel, Map<Integer, Bytes> dictionaries) {
+        var windows = new HashMap<Integer, Bytes>();
+        dictionaries.forEach((id, dictionary) -> windows.put(id, LZ4BlockDecompressor.window(dictionary)));
+        return new LZ4FrameDecompressor(parallel, Map.copyOf(windows));
     }
 
     @Override
     public void decompress(Bytes src, Bytes.Mutable dst) throws IOException {
-        int srcOffset = 0;
-
         var frameHeader = Lz4FrameHeader.read(src);
-        srcOffset += frameHeader.size();
+        var dictionary = dictionary(frameHeader, dictionaries);
+        var blocks = new ArrayList<Lz4Block>();
+        int srcOffset = readBlocks(src, frameHeader, blocks);
+
+        // Linked blocks can reference the previous ones, so only independent blocks can be decoded in parallel
+        boolean decoded = parallel
+            && blocks.size() > 1
+            && frameHeader.flags().contains(Lz4FrameFlag.BLOCK_INDEPENDENCE)
+            && decompressParallel(src, frameHeader, dictionary, blocks, dst);
+        if (!decoded) {
+            int dstOffset = 0;
+            for (var block : blocks) {
+                dstOffset += decompressBlock(src, frameHeader, dictionary, block, dst, dstOffset);
+            }
+            if (dstOffset != dst.length()) {
+                throw new IOException("Error while decompressing: expected " + dst.length() + " bytes, but only have " + dstOffset);
+            }
+        }
+
+        if (frameHeader.flags().contains(Lz4FrameFlag.CONTENT_CHECKSUM)) {
+            int contentChecksum = src.getInt(srcOffset);
+            if (HASH.hash(dst).asInt() != contentChecksum) {
+                throw new IOException("Invalid content checksum");
+            }
+        }
+    }
 
-        int dstOffset = 0;
+    /**
+     * Decodes the frame as it's read, so {@code size} isn't needed, and frames without a content size, or larger
+     * than fits in an array, work as well.
+     */
+    @Override
+    public InputStream decompress(InputStream src, long size) throws IOException {
+        try {
+            return LZ4FrameInputStream.open(src, dictionaries);
+        } catch (IOException | RuntimeException e) {
+            src.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Scans the block headers into {@code blocks}, and returns the offset right after the end mark.
+     */
+    private static int readBlocks(Bytes src, Lz4FrameHeader frameHeader, List<Lz4Block> blocks) throws IOException {
+        boolean blockChecksum = frameHeader.flags().contains(Lz4FrameFlag.BLOCK_CHECKSUM);
+
+        int srcOffset = frameHeader.size();
         while (srcOffset < src.length()) {
             var blockHeader = Lz4BlockHeader.read(src.slice(srcOffset), frameHeader.blockMaximumSize());
             srcOffset += 4;
@@ -29,35 +85,71 @@ final class LZ4FrameDecompressor implements Decompressor {
             if (blockHeader.blockSize() == 0 && !blockHeader.uncompressed()) {
                 break;
             }
-            var blockData = src.slice(srcOffset, blockHeader.blockSize());
-            srcOffset += blockHeader.blockSize();
-
-            if (frameHeader.flags().contains(Lz4FrameFlag.BLOCK_CHECKSUM)) {
-                var blockChecksum = src.getInt(srcOffset);
-                if (HASH.hash(blockData).asInt() != blockChecksum) {
-                    throw new IOException("Invalid block checksum");
-                }
-                srcOffset += 4;
+            blocks.add(new Lz4Block(srcOffset, blockHeader.blockSize(), blockHeader.uncompressed()));
+            srcOffset += blockHeader.blockSize() + (blockChecksum ? 4 : 0);
+        }
+        return srcOffset;
+    }
+
+    /**
+     * Decodes every block into its own slice of {@code dst}, assuming all but the last one are full sized. Returns
+     * {@code false} if that doesn't hold, or if any block fails, in which case the frame has to be decoded
+     * sequentially, which also reports the actual error.
+     */
+    private static boolean decompressParallel(Bytes src, Lz4FrameHeader frameHeader, Bytes dictionary, List<Lz4Block> blocks, Bytes.Mutable dst) {
+        int blockSize = frameHeader.blockMaximumSize();
+        long lastSize = dst.length() - (long) (blocks.size() - 1) * blockSize;
+        if (lastSize <= 0 || lastSize > blockSize) {
+            return false;
+        }
+
+        return IntStream.range(0, blocks.size()).parallel().allMatch(i -> {
+            int dstOffset = i * blockSize;
+            int length = Math.min(blockSize, dst.length() - dstOffset);
+            try {
+                return decompressBlock(src, frameHeader, dictionary, blocks.get(i), dst.slice(dstOffset, length), 0) == length;
+            } catch (IOException e) {
+                return false;
+            }
+        });
+    }
+
+    private static int decompressBlock(Bytes src, Lz4FrameHeader frameHeader, Bytes dictionary, Lz4Block block, Bytes.Mutable dst, int dstOffset) throws IOException {
+        var blockData = src.slice(block.offset(), block.size());
+        if (frameHeader.flags().contains(Lz4FrameFlag.BLOCK_CHECKSUM)) {
+            var blockChecksum = src.getInt(block.offset() + block.size());
+            if (HASH.hash(blockData).asInt() != blockChecksum) {
+                throw new IOException("Invalid block checksum");
             }
-            if (blockHeader.uncompressed()) {
-                blockData.copyTo(dst, dstOffset);
-                dstOffset += blockData.length();
-            } else {
-                dstOffset += LZ4BlockDecompressor.decompress(blockData, dst, dstOffset);
+        }
+        if (block.uncompressed()) {
+            if (blockData.length() > dst.length() - dstOffset) {
+                throw new IOException("Uncompressed block doesn't fit in the output");
             }
+            blockData.copyTo(dst, dstOffset);
+            return blockData.length();
         }
-        if (dstOffset != dst.length()) {
-            throw new IOException("Error while decompressing: expected " + dst.length() + " bytes, but only have " + dstOffset);
+
+        // Independent blocks only see the dictionary, linked blocks everything before them as well
+        if (frameHeader.flags().contains(Lz4FrameFlag.BLOCK_INDEPENDENCE)) {
+            return LZ4BlockDecompressor.decompress(blockData, dst.slice(dstOffset), 0, dictionary);
         }
-        if (frameHeader.flags().contains(Lz4FrameFlag.CONTENT_CHECKSUM)) {
-            int contentChecksum = src.getInt(srcOffset);
-            if (HASH.hash(dst).asInt() != contentChecksum) {
-                throw new IOException("Invalid content checksum");
-            }
+        return LZ4BlockDecompressor.decompress(blockData, dst, dstOffset, dictionary);
+    }
+
+    static Bytes dictionary(Lz4FrameHeader frameHeader, Map<Integer, Bytes> dictionaries) throws IOException {
+        if (frameHeader.dictionaryId().isEmpty()) {
+            return Bytes.empty();
         }
+        int dictionaryId = frameHeader.dictionaryId().getAsInt();
+        var dictionary = dictionaries.get(dictionaryId);
+        if (dictionary == null) {
+            throw new IOException("Unknown dictionary ID: " + Integer.toUnsignedString(dictionaryId, 16));
+        }
+        return dictionary;
     }
 
-    private record Lz4FrameHeader(
+    record Lz4FrameHeader(
         Set<Lz4FrameFlag> flags,
         int blockMaximumSize,
         OptionalLong contentSize,
@@ -132,7 +224,7 @@ final class LZ4FrameDecompressor implements Decompressor {
         }
     }
 
-    private enum Lz4FrameFlag implements FlagEnum {
+    enum Lz4FrameFlag implements FlagEnum {
         DICTIONARY_ID(1 << 0),
         CONTENT_CHECKSUM(1 << 2),
         CONTENT_SIZE(1 << 3),
@@ -152,7 +244,7 @@ final class LZ4FrameDecompressor implements Decompressor {
         }
     }
 
-    private record Lz4BlockHeader(
+    record Lz4BlockHeader(
         int blockSize,
         boolean uncompressed
     ) {
@@ -166,4 +258,11 @@ final class LZ4FrameDecompressor implements Decompressor {
             return new Lz4BlockHeader(blockSize, uncompressed);
         }
     }
+
+    private record Lz4Block(
+        int offset,
+        int size,
+        boolean uncompressed
+    ) {
+    }
 }
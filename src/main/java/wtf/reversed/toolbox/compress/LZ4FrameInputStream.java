@@ -0,0 +1,168 @@
+package wtf.reversed.toolbox.compress;
+
+import wtf.reversed.toolbox.collect.*;
+import wtf.reversed.toolbox.compress.LZ4FrameDecompressor.*;
+import wtf.reversed.toolbox.hash.*;
+import wtf.reversed.toolbox.util.*;
+
+import java.io.*;
+import java.util.*;
+
+/**
+ * Decodes an LZ4 frame one block at a time. Besides the compressed block, only the current block and, for linked
+ * blocks or a dictionary, the 64 KiB before it are kept, so memory doesn't depend on the size of the frame.
+ * Checksums are verified as the blocks come in, the content checksum once the end mark is reached.
+ */
+final class LZ4FrameInputStream extends InputStream {
+    private static final HashFunction HASH = HashFunction.xxHash32(0);
+    private static final int HISTORY_SIZE = 64 * 1024;
+
+    private final InputStream src;
+    private final Lz4FrameHeader frameHeader;
+    private final boolean linked;
+    private final int dictionaryLength;
+    private final byte[] input;
+    private final byte[] buffer;
+    private final StreamingXXHash32 contentHash;
+    private long contentLength;
+    private int position;
+    private int limit;
+    private boolean finished;
+
+    private LZ4FrameInputStream(InputStream src, Lz4FrameHeader frameHeader, Bytes dictionary) {
+        this.src = src;
+        this.frameHeader = frameHeader;
+        this.linked = !frameHeader.flags().contains(Lz4FrameFlag.BLOCK_INDEPENDENCE);
+        this.dictionaryLength = dictionary.length();
+
+        int blockSize = frameHeader.blockMaximumSize();
+        this.input = new byte[blockSize + Integer.BYTES];
+        this.buffer = new byte[(linked ? HISTORY_SIZE : dictionaryLength) + blockSize];
+        this.contentHash = frameHeader.flags().contains(Lz4FrameFlag.CONTENT_CHECKSUM) ? StreamingXXHash32.create(0) : null;
+
+        // The dictionary goes in front of the first block, as if it was already read
+        dictionary.copyTo(Bytes.Mutable.wrap(buffer), 0);
+        this.position = this.limit = dictionaryLength;
+    }
+
+    static LZ4FrameInputStream open(InputStream src, Map<Integer, Bytes> dictionaries) throws IOException {
+        // Magic, FLG and BD tell us how long the rest of the header is
+        byte[] header = new byte[7 + 8 + 4];
+        readFully(src, header, 0, 7);
+        int size = 7 + ((header[4] & 0x08) != 0 ? 8 : 0) + ((header[4] & 0x01) != 0 ? 4 : 0);
+        readFully(src, header, 7, size - 7);
+        var frameHeader = Lz4FrameHeader.read(Bytes.wrap(header, 0, size));
+        return new LZ4FrameInputStream(src, frameHeader, LZ4FrameDecompressor.dictionary(frameHeader, dictionaries));
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (position == limit && !nextBlock()) {
+            return -1;
+        }
+        return buffer[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Check.fromIndexSize(off, len, b.length);
+        if (len == 0) {
+            return 0;
+        }
+        if (position == limit && !nextBlock()) {
+            return -1;
+        }
+
+        int count = Math.min(len, limit - position);
+        System.arraycopy(buffer, position, b, off, count);
+        position += count;
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return limit - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        finished = true;
+        src.close();
+    }
+
+    private boolean nextBlock() throws IOException {
+        while (!finished) {
+            var inputBytes = Bytes.wrap(input);
+            readFully(src, input, 0, Integer.BYTES);
+            var blockHeader = Lz4BlockHeader.read(inputBytes, frameHeader.blockMaximumSize());
+            if (blockHeader.blockSize() == 0 && !blockHeader.uncompressed()) {
+                finish();
+                return false;
+            }
+
+            int blockSize = blockHeader.blockSize();
+            if (blockSize > frameHeader.blockMaximumSize()) {
+                throw new IOException("Block size bigger than block maximum size");
+            }
+            boolean blockChecksum = frameHeader.flags().contains(Lz4FrameFlag.BLOCK_CHECKSUM);
+            readFully(src, input, 0, blockSize + (blockChecksum ? Integer.BYTES : 0));
+            var blockData = inputBytes.slice(0, blockSize);
+            if (blockChecksum && HASH.hash(blockData).asInt() != inputBytes.getInt(blockSize)) {
+                throw new IOException("Invalid block checksum");
+            }
+
+            // Blocks are decoded right after the history or dictionary they can reference
+            int start = linked ? slideHistory() : dictionaryLength;
+            var dst = Bytes.Mutable.wrap(buffer, 0, start + frameHeader.blockMaximumSize());
+            int length;
+            if (blockHeader.uncompressed()) {
+                blockData.copyTo(dst, start);
+                length = blockSize;
+            } else {
+                length = LZ4BlockDecompressor.decompress(blockData, dst, start);
+            }
+
+            if (contentHash != null) {
+                contentHash.update(dst.slice(start, length));
+            }
+            contentLength += length;
+            position = start;
+            limit = start + length;
+            if (length > 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Moves the last 64 KiB of output to the front of the buffer, and returns where the next block goes.
+     */
+    private int slideHistory() {
+        int history = Math.min(limit, HISTORY_SIZE);
+        System.arraycopy(buffer, limit - history, buffer, 0, history);
+        return history;
+    }
+
+    private void finish() throws IOException {
+        finished = true;
+        position = limit = 0;
+
+        if (frameHeader.contentSize().isPresent() && frameHeader.contentSize().getAsLong() != contentLength) {
+            throw new IOException("Error while decompressing: expected " + frameHeader.contentSize().getAsLong() + " bytes, but only have " + contentLength);
+        }
+        if (contentHash != null) {
+            readFully(src, input, 0, Integer.BYTES);
+            if (contentHash.hash().asInt() != Bytes.wrap(input).getInt(0)) {
+                throw new IOException("Invalid content checksum");
+            }
+        }
+    }
+
+    private static void readFully(InputStream src, byte[] target, int offset, int length) throws IOException {
+        int count = src.readNBytes(target, offset, length);
+        if (count != length) {
+            throw new EOFException("Unexpected end of stream");
+        }
+    }
+}
@@ -24,4 +24,9 @@ final class LZMADecompressor implements Decompressor {
         // TODO: Can we avoid this extra copy?
         Bytes.wrap(baos.toByteArray()).copyTo(dst, 0);
     }
+
+    @Override
+    public InputStream decompress(InputStream src, long size) throws IOException {
+        return new LZMAInputStream(src);
+    }
 }
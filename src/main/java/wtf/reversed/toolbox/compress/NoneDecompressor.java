@@ -22,4 +22,9 @@ final class NoneDecompressor implements Decompressor {
 
         src.copyTo(dst, 0);
     }
+
+    @Override
+    public InputStream decompress(InputStream src, long size) {
+        return src;
+    }
 }
@@ -8,25 +8,37 @@ import java.lang.invoke.*;
 import java.nio.file.*;
 
 final class OodleDecompressor implements Decompressor {
+    // Staging buffers up to this size are kept per thread, larger ones are freed right after the call
+    private static final long MAX_RETAINED_SIZE = 4 * 1024 * 1024;
+
     private final FFM ffm;
-    private final MemorySegment decodeBuffer;
+    private final int decoderMemorySize;
+    private final ThreadLocal<Context> contexts = ThreadLocal.withInitial(Context::new);
 
     OodleDecompressor(Path path) {
         this.ffm = new FFM(path, Arena.ofAuto());
         // System.out.println("Loaded Oodle version: " + getVersion());
 
-        int memorySizeNeeded = ffm.OodleLZDecoder_MemorySizeNeeded(-1 /* OodleLZ_Compressor_Invalid */, -1);
-        this.decodeBuffer = Arena.ofAuto().allocate(memorySizeNeeded);
+        this.decoderMemorySize = ffm.OodleLZDecoder_MemorySizeNeeded(-1 /* OodleLZ_Compressor_Invalid */, -1);
     }
 
     @Override
     public void decompress(Bytes src, Bytes.Mutable dst) throws IOException {
-        try (var arena = Arena.ofConfined()) {
-            var srcSegment = arena.allocate(src.length())
-                .copyFrom(MemorySegment.ofBuffer(src.asBuffer()));
-            var dstSegment = arena.allocate(dst.length());
+        decompress(MemorySegment.ofBuffer(src.asBuffer()), MemorySegment.ofBuffer(dst.asMutableBuffer()));
+    }
+
+    /**
+     * Native and mapped segments are handed to Oodle as is, heap ones are staged through native buffers that are
+     * kept per thread, like the decoder memory, unless they are too large to keep around.
+     */
+    @Override
+    public void decompress(MemorySegment src, MemorySegment dst) throws IOException {
+        var context = contexts.get();
+        try (var oversized = Arena.ofConfined()) {
+            var srcSegment = src.isNative() ? src : context.src(src.byteSize(), oversized).copyFrom(src);
+            var dstSegment = dst.isNative() ? dst : context.dst(dst.byteSize(), oversized);
 
-            var result = (int) ffm.OodleLZ_Decompress(
+            var result = ffm.OodleLZ_Decompress(
                 srcSegment, srcSegment.byteSize(),
                 dstSegment, dstSegment.byteSize(),
                 1 /* OodleLZ_FuzzSafe_Yes */,
@@ -34,16 +46,17 @@ final class OodleDecompressor implements Decompressor {
                 0 /* OodleLZ_Verbosity_None */,
                 MemorySegment.NULL, 0,
                 MemorySegment.NULL, MemorySegment.NULL,
-                decodeBuffer, decodeBuffer.byteSize(),
+                context.decoderMemory, context.decoderMemory.byteSize(),
                 3 /* OodleLZ_Decode_ThreadPhaseAll */
             );
 
-            if (result != dst.length()) {
-                throw new IOException("Decompression failed, expected " + dst.length() + ", got " + result);
+            if (result != dst.byteSize()) {
+                throw new IOException("Decompression failed, expected " + dst.byteSize() + ", got " + result);
             }
 
-            MemorySegment.ofBuffer(dst.asMutableBuffer())
-                .copyFrom(dstSegment);
+            if (dstSegment != dst) {
+                dst.copyFrom(dstSegment);
+            }
         }
     }
 
@@ -60,6 +73,42 @@ final class OodleDecompressor implements Decompressor {
         return "2." + major + "." + minor;
     }
 
+    /**
+     * The decoder memory can't be shared between threads, so each thread gets its own, together with staging
+     * buffers that only grow, up to {@link #MAX_RETAINED_SIZE}. Anything larger comes from the given arena instead.
+     */
+    private final class Context {
+        private final MemorySegment decoderMemory = Arena.ofAuto().allocate(decoderMemorySize);
+        private MemorySegment src = MemorySegment.NULL;
+        private MemorySegment dst = MemorySegment.NULL;
+
+        MemorySegment src(long size, Arena oversized) {
+            if (size > MAX_RETAINED_SIZE) {
+                return oversized.allocate(size);
+            }
+            if (src.byteSize() < size) {
+                src = allocate(size);
+            }
+            return src.asSlice(0, size);
+        }
+
+        MemorySegment dst(long size, Arena oversized) {
+            if (size > MAX_RETAINED_SIZE) {
+                return oversized.allocate(size);
+            }
+            if (dst.byteSize() < size) {
+                dst = allocate(size);
+            }
+            return dst.asSlice(0, size);
+        }
+
+        private static MemorySegment allocate(long size) {
+            // Round up to a power of two, so slowly growing inputs don't reallocate every time
+            long capacity = Math.max(0x10000, Long.highestOneBit(size - 1) << 1);
+            return Arena.ofAuto().allocate(Math.min(capacity, MAX_RETAINED_SIZE));
+        }
+    }
+
     private static final class FFM {
         private final SymbolLookup lookup;
 
@@ -0,0 +1,90 @@
+package wtf.reversed.toolbox.hash;
+
+import wtf.reversed.toolbox.collect.*;
+
+import static wtf.reversed.toolbox.hash.XXHash32.*;
+
+/**
+ * An XXHash32 that is fed its input in pieces, so large or streamed inputs can be hashed without having all of it
+ * in memory. The result is the same as hashing the concatenated input with {@link HashFunction#xxHash32(int)}.
+ */
+public final class StreamingXXHash32 {
+    private final int seed;
+    private final Bytes.Mutable pending = Bytes.allocate(16);
+    private int pendingLength;
+    private long length;
+    private int acc1;
+    private int acc2;
+    private int acc3;
+    private int acc4;
+
+    private StreamingXXHash32(int seed) {
+        this.seed = seed;
+        reset();
+    }
+
+    public static StreamingXXHash32 create(int seed) {
+        return new StreamingXXHash32(seed);
+    }
+
+    public void update(Bytes input) {
+        int offset = 0;
+        int inputLength = input.length();
+        length += inputLength;
+
+        // Top up a partial stripe first
+        if (pendingLength > 0) {
+            int count = Math.min(16 - pendingLength, inputLength);
+            input.slice(0, count).copyTo(pending, pendingLength);
+            pendingLength += count;
+            offset = count;
+            if (pendingLength < 16) {
+                return;
+            }
+            stripe(pending, 0);
+            pendingLength = 0;
+        }
+
+        while (offset + 16 <= inputLength) {
+            stripe(input, offset);
+            offset += 16;
+        }
+
+        input.slice(offset).copyTo(pending, 0);
+        pendingLength = inputLength - offset;
+    }
+
+    /**
+     * Returns the hash of everything so far. More input can be added afterward.
+     */
+    public HashCode hash() {
+        int acc;
+        if (length >= 16) {
+            acc = Integer.rotateLeft(acc1, 1)
+                + Integer.rotateLeft(acc2, 7)
+                + Integer.rotateLeft(acc3, 12)
+                + Integer.rotateLeft(acc4, 18);
+        } else {
+            acc = seed + PRIME32_5;
+        }
+        acc = acc + (int) length;
+
+        return HashCode.ofInt(finish(acc, pending.slice(0, pendingLength), 0));
+    }
+
+    public void reset() {
+        acc1 = seed + PRIME32_1 + PRIME32_2;
+        acc2 = seed + PRIME32_2;
+        acc3 = seed;
+        acc4 = seed - PRIME32_1;
+        pendingLength = 0;
+        length = 0;
+    }
+
+    private void stripe(Bytes input, int offset) {
+        acc1 = round(acc1, input.getInt(offset));
+        acc2 = round(acc2, input.getInt(offset + 4));
+        acc3 = round(acc3, input.getInt(offset + 8));
+        acc4 = round(acc4, input.getInt(offset + 12));
+    }
+}
@@ -3,11 +3,11 @@ package wtf.reversed.toolbox.hash;
 import wtf.reversed.toolbox.collect.*;
 
 record XXHash32(int seed) implements HashFunction {
-    private static final int PRIME32_1 = 0x9e3779b1;
-    private static final int PRIME32_2 = 0x85ebca77;
-    private static final int PRIME32_3 = 0xc2b2ae3d;
-    private static final int PRIME32_4 = 0x27d4eb2f;
-    private static final int PRIME32_5 = 0x165667b1;
+    static final int PRIME32_1 = 0x9e3779b1;
+    static final int PRIME32_2 = 0x85ebca77;
+    static final int PRIME32_3 = 0xc2b2ae3d;
+    static final int PRIME32_4 = 0x27d4eb2f;
+    static final int PRIME32_5 = 0x165667b1;
 
     @Override
     public HashCode hash(Bytes input) {
@@ -44,7 +44,14 @@ record XXHash32(int seed) implements HashFunction {
         // Step 4: Add input length
         acc = acc + length;
 
-        // Step 5: Consume remaining input
+        return HashCode.ofInt(finish(acc, input, offset));
+    }
+
+    /**
+     * Consumes the remaining input from {@code offset} on, and mixes the result (steps 5 and 6).
+     */
+    static int finish(int acc, Bytes input, int offset) {
+        var length = input.length();
         while (offset + 4 <= length) {
             int lane = input.getInt(offset);
             acc = acc + (lane * PRIME32_3);
@@ -65,11 +72,10 @@ record XXHash32(int seed) implements HashFunction {
         acc = acc ^ (acc >>> 13);
         acc = acc * PRIME32_3;
         acc = acc ^ (acc >>> 16);
-
-        return HashCode.ofInt(acc);
+        return acc;
     }
 
-    private static int round(int acc, int lane) {
+    static int round(int acc, int lane) {
         acc = acc + (lane * PRIME32_2);
         acc = Integer.rotateLeft(acc, 13);
         return acc * PRIME32_1;
@@ -0,0 +1,216 @@
+package wtf.reversed.toolbox.io;
+
+import wtf.reversed.toolbox.collect.*;
+import wtf.reversed.toolbox.util.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+public abstract class BinarySink implements Closeable, Flushable {
+    Endian endian;
+
+    BinarySink() {
+        this.endian = Endian.LITTLE;
+    }
+
+    public static BinarySink open(Path path) throws IOException {
+        return FileBinarySink.create(path);
+    }
+
+    public static BinarySink map(Path path, long size) throws IOException {
+        return MappedBinarySink.create(path, size);
+    }
+
+    public static BytesBinarySink allocate() {
+        return allocate(0x100);
+    }
+
+    public static BytesBinarySink allocate(int capacity) {
+        return new BytesBinarySink(capacity);
+    }
+
+
+    public final ByteOrder order() {
+        return endian.order();
+    }
+
+    public final BinarySink order(ByteOrder order) {
+        this.endian = Endian.of(Check.nonNull(order, "order"));
+        return this;
+    }
+
+    public abstract long size();
+
+    public abstract long position();
+
+    public abstract BinarySink position(long position) throws IOException;
+
+    public abstract void writeBytes(Bytes source) throws IOException;
+
+    public abstract void writeByte(byte value) throws IOException;
+
+    public abstract void writeShort(short value) throws IOException;
+
+    public abstract void writeInt(int value) throws IOException;
+
+    public abstract void writeLong(long value) throws IOException;
+
+    public final void writeIntAsLong(int value) throws IOException {
+        writeLong(value);
+    }
+
+    public final void writeHalf(float value) throws IOException {
+        writeShort(Float.floatToFloat16(value));
+    }
+
+    public final void writeFloat(float value) throws IOException {
+        writeInt(Float.floatToRawIntBits(value));
+    }
+
+    public final void writeDouble(double value) throws IOException {
+        writeLong(Double.doubleToRawLongBits(value));
+    }
+
+    public final void writeShorts(Shorts values) throws IOException {
+        var source = values.asBuffer();
+        while (source.hasRemaining()) {
+            var target = writeBuffer(chunkLength(source.remaining(), Short.BYTES), Short.BYTES).asShortBuffer();
+            target.put(source.slice(source.position(), target.remaining()));
+            source.position(source.position() + target.capacity());
+        }
+    }
+
+    public final void writeInts(Ints values) throws IOException {
+        var source = values.asBuffer();
+        while (source.hasRemaining()) {
+            var target = writeBuffer(chunkLength(source.remaining(), Integer.BYTES), Integer.BYTES).asIntBuffer();
+            target.put(source.slice(source.position(), target.remaining()));
+            source.position(source.position() + target.capacity());
+        }
+    }
+
+    public final void writeLongs(Longs values) throws IOException {
+        var source = values.asBuffer();
+        while (source.hasRemaining()) {
+            var target = writeBuffer(chunkLength(source.remaining(), Long.BYTES), Long.BYTES).asLongBuffer();
+            target.put(source.slice(source.position(), target.remaining()));
+            source.position(source.position() + target.capacity());
+        }
+    }
+
+    public final void writeHalfs(Floats values) throws IOException {
+        var source = values.asBuffer();
+        while (source.hasRemaining()) {
+            var target = writeBuffer(chunkLength(source.remaining(), Short.BYTES), Short.BYTES).asShortBuffer();
+            for (int i = 0, limit = target.limit(); i < limit; i++) {
+                target.put(i, Float.floatToFloat16(source.get()));
+            }
+        }
+    }
+
+    public final void writeFloats(Floats values) throws IOException {
+        var source = values.asBuffer();
+        while (source.hasRemaining()) {
+            var target = writeBuffer(chunkLength(source.remaining(), Float.BYTES), Float.BYTES).asFloatBuffer();
+            target.put(source.slice(source.position(), target.remaining()));
+            source.position(source.position() + target.capacity());
+        }
+    }
+
+    public final void writeDoubles(Doubles values) throws IOException {
+        var source = values.asBuffer();
+        while (source.hasRemaining()) {
+            var target = writeBuffer(chunkLength(source.remaining(), Double.BYTES), Double.BYTES).asDoubleBuffer();
+            target.put(source.slice(source.position(), target.remaining()));
+            source.position(source.position() + target.capacity());
+        }
+    }
+
+
+    public final void writeBool(boolean value, BoolFormat format) throws IOException {
+        switch (format) {
+            case BYTE -> writeByte((byte) (value ? 1 : 0));
+            case SHORT -> writeShort((short) (value ? 1 : 0));
+            case INT -> writeInt(value ? 1 : 0);
+        }
+    }
+
+    public final void writeString(String value, StringFormat format) throws IOException {
+        writeString(value, format, StandardCharsets.UTF_8);
+    }
+
+    public final void writeString(String value, StringFormat format, Charset charset) throws IOException {
+        var bytes = value.getBytes(charset);
+        switch (format) {
+            case BYTE_LENGTH -> {
+                Check.argument(bytes.length <= 0xFF, () -> "String too long for a byte length: " + bytes.length);
+                writeByte((byte) bytes.length);
+            }
+            case SHORT_LENGTH -> {
+                Check.argument(bytes.length <= 0xFFFF, () -> "String too long for a short length: " + bytes.length);
+                writeShort((short) bytes.length);
+            }
+            case INT_LENGTH -> writeInt(bytes.length);
+            case NULL_TERM -> {
+            }
+        }
+        writeBytes(Bytes.wrap(bytes));
+        if (format == StringFormat.NULL_TERM) {
+            writeNullTerminator(charset);
+        }
+    }
+
+    public final void writeString(String value) throws IOException {
+        writeString(value, StandardCharsets.UTF_8);
+    }
+
+    public final void writeString(String value, Charset charset) throws IOException {
+        writeBytes(Bytes.wrap(value.getBytes(charset)));
+    }
+
+    public final void writeStrings(List<String> values, StringFormat format) throws IOException {
+        writeStrings(values, format, StandardCharsets.UTF_8);
+    }
+
+    public final void writeStrings(List<String> values, StringFormat format, Charset charset) throws IOException {
+        writeObjects(values, (sink, value) -> sink.writeString(value, format, charset));
+    }
+
+    public final <T> void writeObject(T value, Writer<T> writer) throws IOException {
+        writer.write(this, value);
+    }
+
+    public final <T> void writeObjects(List<T> values, Writer<T> writer) throws IOException {
+        Check.nonNull(writer, "writer");
+        for (T value : values) {
+            writer.write(this, value);
+        }
+    }
+
+    /**
+     * Reserves at least {@code unit} and at most {@code maxLength} bytes, in multiples of {@code unit}, at the
+     * current position, and returns them as a buffer in the current byte order. The caller must fill the whole
+     * buffer before the next write.
+     */
+    abstract ByteBuffer writeBuffer(int maxLength, int unit) throws IOException;
+
+    private static int chunkLength(int count, int unit) {
+        return Math.min(count, Integer.MAX_VALUE / unit) * unit;
+    }
+
+    private void writeNullTerminator(Charset charset) throws IOException {
+        switch (charset.name()) {
+            case "UTF-16", "UTF-16BE", "UTF-16LE" -> writeShort((short) 0);
+            case "UTF-32", "UTF-32BE", "UTF-32LE" -> writeInt(0);
+            default -> writeByte((byte) 0);
+        }
+    }
+
+    @FunctionalInterface
+    public interface Writer<T> {
+        void write(BinarySink sink, T value) throws IOException;
+    }
+}
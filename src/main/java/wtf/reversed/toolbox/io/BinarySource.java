@@ -1,6 +1,7 @@
 package wtf.reversed.toolbox.io;
 
 import wtf.reversed.toolbox.collect.*;
+import wtf.reversed.toolbox.compress.*;
 import wtf.reversed.toolbox.util.*;
 
 import java.io.*;
@@ -8,20 +9,32 @@ import java.nio.*;
 import java.nio.charset.*;
 import java.nio.file.*;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
 
 public abstract class BinarySource implements Closeable {
+    private static final int MAX_VARLONG_BYTES = 10;
+
     final long size;
-    boolean bigEndian;
+    Endian endian;
 
     BinarySource(long size) {
         this.size = Check.positiveOrZero(size, "size");
-        this.bigEndian = false;
+        this.endian = Endian.LITTLE;
     }
 
     public static BinarySource open(Path path) throws IOException {
         return FileBinarySource.create(path);
     }
 
+    public static BinarySource open(Path path, BufferPolicy policy) throws IOException {
+        return FileBinarySource.create(path, policy);
+    }
+
+    public static BinarySource map(Path path) throws IOException {
+        return MappedBinarySource.create(path);
+    }
+
     public static BinarySource wrap(Bytes bytes) throws IOException {
         return new BytesBinarySource(bytes);
     }
@@ -31,16 +44,47 @@ public abstract class BinarySource implements Closeable {
         return new SequenceBinarySource(readers);
     }
 
+    /**
+     * Returns a source over the decompressed contents of {@code compressed}, which is decompressed on demand as it
+     * is read. Seeking forward skips ahead in the stream, seeking backward restarts it from the beginning. The
+     * returned source takes ownership of {@code compressed}, and closes it when closed.
+     */
+    public static BinarySource decompressing(BinarySource compressed, Decompressor decompressor, long size) {
+        return new DecompressingBinarySource(compressed, decompressor, size);
+    }
+
+    public static BinarySource chunked(BinarySource compressed, Decompressor decompressor, Longs offsets, int chunkSize, long size) {
+        return chunked(compressed, decompressor, offsets, chunkSize, size, 0x4000000);
+    }
+
+    /**
+     * Returns a source over a stream that was compressed in independent chunks of {@code chunkSize} bytes, where
+     * chunk {@code i} is stored at {@code [offsets[i], offsets[i + 1])} in {@code compressed}. Only the chunks
+     * touched by a read are decompressed, and up to {@code cacheSize} bytes of them are kept around. Chunks whose
+     * stored size equals their decompressed size are assumed to be stored as is. The returned source takes
+     * ownership of {@code compressed}, and closes it when closed.
+     */
+    public static BinarySource chunked(BinarySource compressed, Decompressor decompressor, Longs offsets, int chunkSize, long size, long cacheSize) {
+        return new ChunkedBinarySource(compressed, decompressor, offsets, chunkSize, size, cacheSize);
+    }
+
 
     public final ByteOrder order() {
-        return bigEndian ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+        return endian.order();
     }
 
     public final BinarySource order(ByteOrder order) {
-        this.bigEndian = Check.nonNull(order, "order") == ByteOrder.BIG_ENDIAN;
+        this.endian = Endian.of(Check.nonNull(order, "order"));
+        orderChanged();
         return this;
     }
 
+    /**
+     * Called after the byte order changed, for sources that read through other sources.
+     */
+    void orderChanged() {
+    }
+
     public final long size() {
         return size;
     }
@@ -67,6 +111,61 @@ public abstract class BinarySource implements Closeable {
 
     public abstract long readLong() throws IOException;
 
+    /**
+     * Returns the state of the read buffer and the read metrics of this source, or nothing if it reads straight
+     * from memory.
+     */
+    public Optional<ReadStats> readStats() {
+        return Optional.empty();
+    }
+
+    /**
+     * Reads {@code target.length()} bytes starting at {@code position}, without using or changing the position of
+     * this source. Positional reads keep no state, so they can be issued concurrently from multiple threads.
+     */
+    public final void readAt(long position, Bytes.Mutable target) throws IOException {
+        Check.fromIndexSize(position, target.length(), size);
+        readAtImpl(position, target);
+    }
+
+    /**
+     * Returns a new source over the same data, with its own position and byte order. The cursor shares the
+     * underlying storage, so it is cheap to create one per thread. Closing a cursor does not close this source.
+     */
+    public final BinarySource cursor() {
+        return slice(0, size);
+    }
+
+    /**
+     * Returns a new source over the {@code length} bytes starting at {@code offset}, with its own position, byte
+     * order and bounds. Nothing is copied, the slice reads from the same storage as this source, so nested formats
+     * can be parsed in place. Closing a slice does not close this source.
+     */
+    public BinarySource slice(long offset, long length) {
+        Check.fromIndexSize(offset, length, size);
+        return new SliceBinarySource(this, offset, length).order(order());
+    }
+
+    /**
+     * Returns an input stream that reads from the current position of this source onward, advancing it as it goes.
+     * Closing the stream does not close this source.
+     */
+    public InputStream asInputStream() {
+        return new SourceInputStream(this);
+    }
+
+    /**
+     * Reads {@code length} bytes, and returns them as a read-only buffer in the current byte order. The buffer may
+     * share storage with this source, so it is only valid until the next read.
+     */
+    public final ByteBuffer readBuffer(int length) throws IOException {
+        if (Check.positiveOrZero(length, "length") == 0) {
+            return ByteBuffer.allocate(0).order(order());
+        }
+        ensureRemaining(length);
+        return readBuffer(length, length);
+    }
+
     public final int readLongAsInt() throws IOException {
         return Math.toIntExact(readLong());
     }
@@ -83,6 +182,58 @@ public abstract class BinarySource implements Closeable {
         return Double.longBitsToDouble(readLong());
     }
 
+    /**
+     * Reads an unsigned LEB128 varint of at most 32 bits. Negative values that were sign extended to 64 bits, as
+     * protobuf does, are accepted as well.
+     */
+    public final int readVarInt() throws IOException {
+        long value = readVarLong();
+        if (value >>> Integer.SIZE != 0 && value != (int) value) {
+            throw new IOException("Varint does not fit in an int: " + Long.toUnsignedString(value));
+        }
+        return (int) value;
+    }
+
+    /**
+     * Reads an unsigned LEB128 varint of at most 64 bits.
+     */
+    public final long readVarLong() throws IOException {
+        // With a whole word available, find the last byte and gather its 7-bit groups in one go
+        var window = peekWindow(MAX_VARLONG_BYTES);
+        if (window.length() >= Long.BYTES) {
+            long word = window.getLong(0);
+            long stops = ~word & 0x8080808080808080L;
+            if (stops != 0) {
+                int length = (Long.numberOfTrailingZeros(stops) + 1) >>> 3;
+                skipWindow(length);
+                return Long.compress(word, 0x7F7F7F7F7F7F7F7FL >>> (Long.SIZE - length * Byte.SIZE));
+            }
+        }
+
+        long result = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte value = readByte();
+            result |= (long) (value & 0x7F) << shift;
+            if (value >= 0) {
+                if (shift == 63 && value > 1) {
+                    break;
+                }
+                return result;
+            }
+        }
+        throw new IOException("Varint does not fit in a long");
+    }
+
+    public final int readZigZag() throws IOException {
+        int value = readVarInt();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    public final long readZigZagLong() throws IOException {
+        long value = readVarLong();
+        return (value >>> 1) ^ -(value & 1);
+    }
+
     public final Bytes readBytes(int count) throws IOException {
         if (Check.positiveOrZero(count, "count") == 0) {
             return Bytes.empty();
@@ -94,6 +245,19 @@ public abstract class BinarySource implements Closeable {
         return result;
     }
 
+    /**
+     * Reads {@code count} bytes, sharing the underlying storage when the source is backed by memory.
+     * The returned slice must not be assumed to be a copy; use {@link #readBytes(int)} when one is needed.
+     */
+    public final Bytes readSlice(int count) throws IOException {
+        if (Check.positiveOrZero(count, "count") == 0) {
+            return Bytes.empty();
+        }
+        ensureRemaining(count * (long) Byte.BYTES);
+
+        return readSliceImpl(count);
+    }
+
     public final Shorts readShorts(int count) throws IOException {
         if (Check.positiveOrZero(count, "count") == 0) {
             return Shorts.empty();
@@ -101,8 +265,9 @@ public abstract class BinarySource implements Closeable {
         ensureRemaining(count * (long) Short.BYTES);
 
         var result = Shorts.Mutable.allocate(count);
-        for (var i = 0; i < result.length(); i++) {
-            result.set(i, readShort());
+        var target = result.asMutableBuffer();
+        while (target.hasRemaining()) {
+            target.put(readBuffer(chunkLength(target.remaining(), Short.BYTES), Short.BYTES).asShortBuffer());
         }
         return result;
     }
@@ -114,8 +279,9 @@ public abstract class BinarySource implements Closeable {
         ensureRemaining(count * (long) Integer.BYTES);
 
         var result = Ints.Mutable.allocate(count);
-        for (var i = 0; i < result.length(); i++) {
-            result.set(i, readInt());
+        var target = result.asMutableBuffer();
+        while (target.hasRemaining()) {
+            target.put(readBuffer(chunkLength(target.remaining(), Integer.BYTES), Integer.BYTES).asIntBuffer());
         }
         return result;
     }
@@ -127,8 +293,9 @@ public abstract class BinarySource implements Closeable {
         ensureRemaining(count * (long) Long.BYTES);
 
         var result = Longs.Mutable.allocate(count);
-        for (var i = 0; i < result.length(); i++) {
-            result.set(i, readLong());
+        var target = result.asMutableBuffer();
+        while (target.hasRemaining()) {
+            target.put(readBuffer(chunkLength(target.remaining(), Long.BYTES), Long.BYTES).asLongBuffer());
         }
         return result;
     }
@@ -140,8 +307,12 @@ public abstract class BinarySource implements Closeable {
         ensureRemaining(count * (long) Long.BYTES);
 
         var result = Ints.Mutable.allocate(count);
-        for (var i = 0; i < result.length(); i++) {
-            result.set(i, readLongAsInt());
+        var target = result.asMutableBuffer();
+        while (target.hasRemaining()) {
+            var chunk = readBuffer(chunkLength(target.remaining(), Long.BYTES), Long.BYTES).asLongBuffer();
+            for (int i = 0, limit = chunk.limit(); i < limit; i++) {
+                target.put(Math.toIntExact(chunk.get(i)));
+            }
         }
         return result;
     }
@@ -153,8 +324,12 @@ public abstract class BinarySource implements Closeable {
         ensureRemaining(count * (long) Short.BYTES);
 
         var result = Floats.Mutable.allocate(count);
-        for (var i = 0; i < result.length(); i++) {
-            result.set(i, readHalf());
+        var target = result.asMutableBuffer();
+        while (target.hasRemaining()) {
+            var chunk = readBuffer(chunkLength(target.remaining(), Short.BYTES), Short.BYTES).asShortBuffer();
+            for (int i = 0, limit = chunk.limit(); i < limit; i++) {
+                target.put(Float.float16ToFloat(chunk.get(i)));
+            }
         }
         return result;
     }
@@ -166,8 +341,9 @@ public abstract class BinarySource implements Closeable {
         ensureRemaining(count * (long) Float.BYTES);
 
         var result = Floats.Mutable.allocate(count);
-        for (var i = 0; i < result.length(); i++) {
-            result.set(i, readFloat());
+        var target = result.asMutableBuffer();
+        while (target.hasRemaining()) {
+            target.put(readBuffer(chunkLength(target.remaining(), Float.BYTES), Float.BYTES).asFloatBuffer());
         }
         return result;
     }
@@ -179,8 +355,21 @@ public abstract class BinarySource implements Closeable {
         ensureRemaining(count * (long) Double.BYTES);
 
         var result = Doubles.Mutable.allocate(count);
-        for (var i = 0; i < result.length(); i++) {
-            result.set(i, readDouble());
+        var target = result.asMutableBuffer();
+        while (target.hasRemaining()) {
+            target.put(readBuffer(chunkLength(target.remaining(), Double.BYTES), Double.BYTES).asDoubleBuffer());
+        }
+        return result;
+    }
+
+    public final Ints readVarInts(int count) throws IOException {
+        if (Check.positiveOrZero(count, "count") == 0) {
+            return Ints.empty();
+        }
+
+        var result = Ints.Mutable.allocate(count);
+        for (int i = 0; i < count; i++) {
+            result.set(i, readVarInt());
         }
         return result;
     }
@@ -204,12 +393,15 @@ public abstract class BinarySource implements Closeable {
     }
 
     public final String readString(StringFormat format, Charset charset) throws IOException {
-        return switch (format) {
-            case BYTE_LENGTH -> readString(Byte.toUnsignedInt(readByte()), charset);
-            case SHORT_LENGTH -> readString(Short.toUnsignedInt(readShort()), charset);
-            case INT_LENGTH -> readString(readInt(), charset);
-            case NULL_TERM -> readNullTerminatedString(charset);
-        };
+        return readStringBytes(format, charset).toString(charset);
+    }
+
+    /**
+     * Reads a string, and looks up its raw bytes in {@code pool} before decoding them, so repeated strings are
+     * only decoded and retained once.
+     */
+    public final String readString(StringFormat format, StringPool pool) throws IOException {
+        return pool.intern(readStringBytes(format, pool.charset()));
     }
 
     public final String readString(int length) throws IOException {
@@ -217,10 +409,7 @@ public abstract class BinarySource implements Closeable {
     }
 
     public final String readString(int length, Charset charset) throws IOException {
-        if (Check.positiveOrZero(length, "length") == 0) {
-            return "";
-        }
-        return readBytes(length).toString(charset);
+        return readStringBytes(length).toString(charset);
     }
 
     public final List<String> readStrings(int count, StringFormat format) throws IOException {
@@ -231,17 +420,66 @@ public abstract class BinarySource implements Closeable {
         return readObjects(count, reader -> reader.readString(format, charset));
     }
 
+    public final List<String> readStrings(int count, StringFormat format, StringPool pool) throws IOException {
+        return readObjects(count, reader -> reader.readString(format, pool));
+    }
+
     public final <T> T readObject(Mapper<T> mapper) throws IOException {
         return mapper.read(this);
     }
 
     public final <T> List<T> readObjects(int count, Mapper<T> mapper) throws IOException {
         Check.nonNull(mapper, "mapper");
-        List<T> result = new ArrayList<>(Check.positiveOrZero(count, "count"));
+        Object[] result = new Object[Check.positiveOrZero(count, "count")];
         for (var i = 0; i < count; i++) {
-            result.add(mapper.read(this));
+            result[i] = Check.nonNull(mapper.read(this), "result");
+        }
+        return wrapObjects(result);
+    }
+
+    /**
+     * Reads {@code count} records of exactly {@code stride} bytes each, like {@link #readObjects(int, Mapper)}, but
+     * decodes them in parallel on the common fork-join pool. The records are split in batches, each read from its own
+     * slice, and every record starts at its own multiple of {@code stride}. The mapper has to be thread-safe, and may
+     * read less than {@code stride} bytes, but reading more is an error. Afterward, the position is right after the
+     * last record.
+     */
+    public final <T> List<T> readObjects(int count, int stride, Mapper<T> mapper) throws IOException {
+        Check.nonNull(mapper, "mapper");
+        Check.positiveOrZero(count, "count");
+        Check.positive(stride, "stride");
+
+        long start = position();
+        long length = Math.multiplyExact((long) count, stride);
+        ensureRemaining(length);
+
+        // Split in a few batches per worker, so every task amortizes the cost of its slice
+        Object[] result = new Object[count];
+        int batchSize = Math.max(1, count / (ForkJoinPool.getCommonPoolParallelism() * 4));
+        int batches = Math.ceilDiv(count, batchSize);
+        try {
+            IntStream.range(0, batches).parallel().forEach(batch -> {
+                int from = batch * batchSize;
+                int to = Math.min(from + batchSize, count);
+                try (var slice = slice(start + (long) from * stride, (long) (to - from) * stride)) {
+                    for (int i = from; i < to; i++) {
+                        long end = (long) (i - from + 1) * stride;
+                        slice.position(end - stride);
+                        result[i] = Check.nonNull(mapper.read(slice), "result");
+                        if (slice.position() > end) {
+                            throw new IOException("Record " + i + " overran its stride of " + stride + " bytes");
+                        }
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
         }
-        return List.copyOf(result);
+
+        position(start + length);
+        return wrapObjects(result);
     }
 
 
@@ -299,56 +537,72 @@ public abstract class BinarySource implements Closeable {
         }
     }
 
-    private String readNullTerminatedString(Charset charset) throws IOException {
-        return (switch (charset.name()) {
-            case "UTF-16", "UTF-16BE", "UTF-16LE" -> readNullTerminatedString2();
-            case "UTF-32", "UTF-32BE", "UTF-32LE" -> readNullTerminatedString4();
-            default -> readNullTerminatedString1();
-        }).toString(charset);
+    abstract void readAtImpl(long position, Bytes.Mutable target) throws IOException;
+
+    /**
+     * Reads at least {@code unit} and at most {@code maxLength} bytes, in multiples of {@code unit},
+     * and returns them as a buffer in the current byte order. The buffer may share storage with this
+     * source, so it is only valid until the next read.
+     */
+    abstract ByteBuffer readBuffer(int maxLength, int unit) throws IOException;
+
+    /**
+     * Reads up to and including a null terminator of {@code unit} bytes, and returns the bytes before it. The result
+     * may share storage with this source, so it is only valid until the next read.
+     */
+    abstract Bytes readTerminated(int unit) throws IOException;
+
+    /**
+     * Reads {@code count} bytes, like {@link #readSlice(int)}, but the result may also point into a read buffer, so
+     * it is only valid until the next read.
+     */
+    Bytes readWindow(int count) throws IOException {
+        return readSliceImpl(count);
+    }
+
+    /**
+     * Returns the upcoming bytes without consuming them, or fewer if they aren't readily available. Only valid
+     * until the next read, and to be followed by a {@link #skipWindow(int)} of at most the returned length.
+     */
+    Bytes peekWindow(int count) throws IOException {
+        return Bytes.empty();
     }
 
-    private ByteArrayOutputStream readNullTerminatedString1() throws IOException {
-        var result = new ByteArrayOutputStream();
-        while (true) {
-            var b0 = readByte();
-            if (b0 == 0) {
-                break;
-            }
-            result.write(b0);
-        }
-        return result;
+    void skipWindow(int count) throws IOException {
+        skip(count);
     }
 
-    private ByteArrayOutputStream readNullTerminatedString2() throws IOException {
-        var result = new ByteArrayOutputStream();
-        while (true) {
-            var b0 = readByte();
-            var b1 = readByte();
-            if (b0 == 0 && b1 == 0) {
-                break;
-            }
-            result.write(b0);
-            result.write(b1);
-        }
+    Bytes readSliceImpl(int count) throws IOException {
+        var result = Bytes.allocate(count);
+        readBytes(result);
         return result;
     }
 
-    private ByteArrayOutputStream readNullTerminatedString4() throws IOException {
-        var result = new ByteArrayOutputStream();
-        while (true) {
-            var b0 = readByte();
-            var b1 = readByte();
-            var b2 = readByte();
-            var b3 = readByte();
-            if (b0 == 0 && b1 == 0 && b2 == 0 && b3 == 0) {
-                break;
-            }
-            result.write(b0);
-            result.write(b1);
-            result.write(b2);
-            result.write(b3);
+    @SuppressWarnings("unchecked")
+    private static <T> List<T> wrapObjects(Object[] objects) {
+        // The array never escapes, so there is no need for the defensive copy of List.copyOf
+        return (List<T>) Collections.unmodifiableList(Arrays.asList(objects));
+    }
+
+    private static int chunkLength(int count, int unit) {
+        return Math.min(count, Integer.MAX_VALUE / unit) * unit;
+    }
+
+    private Bytes readStringBytes(StringFormat format, Charset charset) throws IOException {
+        return switch (format) {
+            case BYTE_LENGTH -> readStringBytes(Byte.toUnsignedInt(readByte()));
+            case SHORT_LENGTH -> readStringBytes(Short.toUnsignedInt(readShort()));
+            case INT_LENGTH -> readStringBytes(readInt());
+            case NULL_TERM -> readTerminated(NullTerminators.unit(charset.name()));
+        };
+    }
+
+    private Bytes readStringBytes(int length) throws IOException {
+        if (Check.positiveOrZero(length, "length") == 0) {
+            return Bytes.empty();
         }
-        return result;
+        ensureRemaining(length);
+        return readWindow(length);
     }
 
     @FunctionalInterface
@@ -0,0 +1,148 @@
+package wtf.reversed.toolbox.io;
+
+import wtf.reversed.toolbox.collect.*;
+import wtf.reversed.toolbox.util.*;
+
+import java.io.*;
+
+/**
+ * Reads values of arbitrary bit widths from a packed bit stream, least significant bit first.
+ * <p>
+ * Bits are served from a 64-bit accumulator, which is refilled a whole word at a time, so most reads are a shift
+ * and a mask.
+ */
+public final class BitReader {
+    private final Bytes bytes;
+    private int position = 0; // Next byte to load into the accumulator
+    private long accumulator = 0;
+    private int available = 0; // Number of valid bits in the accumulator
+
+    private BitReader(Bytes bytes) {
+        this.bytes = Check.nonNull(bytes, "bytes");
+    }
+
+    public static BitReader of(Bytes bytes) {
+        return new BitReader(bytes);
+    }
+
+    /**
+     * Reads the next {@code length} bytes of {@code source}, and returns a bit reader over them.
+     */
+    public static BitReader of(BinarySource source, int length) throws IOException {
+        return new BitReader(source.readSlice(length));
+    }
+
+    public long position() {
+        return (long) position * Byte.SIZE - available;
+    }
+
+    public long remaining() {
+        return (long) bytes.length() * Byte.SIZE - position();
+    }
+
+    /**
+     * Reads an unsigned value of {@code count} bits, where {@code count} is between 0 and 32.
+     */
+    public int readBits(int count) throws EOFException {
+        checkCount(count, 0);
+        ensureAvailable(count);
+        int result = (int) (accumulator & mask(count));
+        accumulator >>>= count;
+        available -= count;
+        return result;
+    }
+
+    /**
+     * Reads a two's complement value of {@code count} bits, where {@code count} is between 1 and 32, and sign
+     * extends it.
+     */
+    public int readSigned(int count) throws EOFException {
+        checkCount(count, 1);
+        int shift = Integer.SIZE - count;
+        return readBits(count) << shift >> shift;
+    }
+
+    public boolean readBit() throws EOFException {
+        return readBits(1) != 0;
+    }
+
+    /**
+     * Unpacks {@code target.length()} consecutive unsigned values of {@code count} bits into {@code target}, where
+     * {@code count} is between 1 and 32.
+     */
+    public void readBits(Ints.Mutable target, int count) throws EOFException {
+        checkCount(count, 1);
+        if (remaining() < (long) target.length() * count) {
+            throw new EOFException("Expected " + (long) target.length() * count + " bits, but only " + remaining() + " available");
+        }
+
+        // A refill leaves at least 57 bits before the end, so we can unpack a whole batch without checking in between
+        var buffer = target.asMutableBuffer();
+        long mask = mask(count);
+        for (int i = 0, length = target.length(); i < length; ) {
+            refill();
+            int batch = Math.min(available / count, length - i);
+            for (int j = 0; j < batch; j++) {
+                buffer.put(i + j, (int) (accumulator & mask));
+                accumulator >>>= count;
+            }
+            available -= batch * count;
+            i += batch;
+        }
+    }
+
+    public void skip(long count) throws EOFException {
+        Check.positiveOrZero(count, "count");
+        if (remaining() < count) {
+            throw new EOFException("Expected " + count + " bits, but only " + remaining() + " available");
+        }
+
+        long target = position() + count;
+        position = Math.toIntExact(target / Byte.SIZE);
+        accumulator = 0;
+        available = 0;
+        readBits((int) (target % Byte.SIZE));
+    }
+
+    /**
+     * Skips to the next byte boundary.
+     */
+    public void align() throws EOFException {
+        readBits(available % Byte.SIZE);
+    }
+
+    private void ensureAvailable(int count) throws EOFException {
+        if (available >= count) {
+            return;
+        }
+        refill();
+        if (available < count) {
+            throw new EOFException("Expected " + count + " bits, but only " + available + " available");
+        }
+    }
+
+    private void refill() {
+        if (position + Long.BYTES <= bytes.length()) {
+            // Load a whole word, and keep the bytes that fit. The bits above are the bytes that follow, so the
+            // next refill can safely OR them in again.
+            accumulator |= bytes.getLong(position) << available;
+            int consumed = (63 - available) >>> 3;
+            position += consumed;
+            available += consumed * Byte.SIZE;
+            return;
+        }
+
+        while (available <= 56 && position < bytes.length()) {
+            accumulator |= (long) bytes.getUnsigned(position++) << available;
+            available += Byte.SIZE;
+        }
+    }
+
+    private static long mask(int count) {
+        return (1L << count) - 1;
+    }
+
+    private static void checkCount(int count, int minimum) {
+        Check.argument(count >= minimum && count <= Integer.SIZE, () -> "count must be between " + minimum + " and 32, but was " + count);
+    }
+}
@@ -0,0 +1,55 @@
+package wtf.reversed.toolbox.io;
+
+import wtf.reversed.toolbox.util.*;
+
+/**
+ * Controls the size of the read buffer of a buffered {@link BinarySource}.
+ * <p>
+ * A fixed policy always uses the same buffer size. An adaptive policy starts at the minimum size, doubles the
+ * buffer while reads are sequential, and halves it again on every seek that leaves the buffer, staying between
+ * the minimum and maximum size.
+ * <p>
+ * With read-ahead enabled, every refill also starts reading the next buffer on a virtual thread, so decoding the
+ * current buffer overlaps with the I/O for the next one. A seek elsewhere drops the prefetch right away, without
+ * waiting for it to finish.
+ * <p>
+ * With metrics enabled, every read from the underlying storage is counted and timed, see
+ * {@link BinarySource#readStats()}, and reported as a {@code wtf.reversed.toolbox.io.SourceRead} JFR event.
+ *
+ * @param minimumSize the initial and smallest buffer size
+ * @param maximumSize the largest buffer size
+ * @param readAhead   whether to prefetch the next buffer in the background
+ * @param metrics     whether to record read metrics
+ */
+public record BufferPolicy(int minimumSize, int maximumSize, boolean readAhead, boolean metrics) {
+    /**
+     * The default policy, a fixed buffer of 8 KiB.
+     */
+    public static final BufferPolicy DEFAULT = fixed(0x2000);
+
+    public BufferPolicy {
+        // The buffer has to hold at least the largest primitive, or reading one can never succeed
+        Check.argument(minimumSize >= Long.BYTES, () -> "minimumSize must be at least " + Long.BYTES + ", but got " + minimumSize);
+        Check.argument(maximumSize >= minimumSize, "maximumSize must be greater than or equal to minimumSize");
+    }
+
+    public static BufferPolicy fixed(int size) {
+        return new BufferPolicy(size, size, false, false);
+    }
+
+    public static BufferPolicy adaptive(int minimumSize, int maximumSize) {
+        return new BufferPolicy(minimumSize, maximumSize, false, false);
+    }
+
+    public BufferPolicy withReadAhead(boolean readAhead) {
+        return new BufferPolicy(minimumSize, maximumSize, readAhead, metrics);
+    }
+
+    public BufferPolicy withMetrics(boolean metrics) {
+        return new BufferPolicy(minimumSize, maximumSize, readAhead, metrics);
+    }
+
+    public boolean isAdaptive() {
+        return minimumSize != maximumSize;
+    }
+}
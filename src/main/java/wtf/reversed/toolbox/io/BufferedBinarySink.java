@@ -0,0 +1,126 @@
+package wtf.reversed.toolbox.io;
+
+import wtf.reversed.toolbox.collect.*;
+import wtf.reversed.toolbox.util.*;
+
+import java.io.*;
+import java.nio.*;
+
+abstract class BufferedBinarySink extends BinarySink {
+    private static final int BUFFER_SIZE = 0x2000;
+    private final Bytes.Mutable buffer = Bytes.allocate(BUFFER_SIZE);
+    private final byte[] array = buffer.asMutableBuffer().array(); // Backing array of the buffer, for the primitive writes
+    private long sinkPosition = 0; // Always points to buffer[0]
+    private int bufferPosition = 0; // Points to the next byte to write
+    private long size;
+
+    BufferedBinarySink(long size) {
+        this.size = Check.positiveOrZero(size, "size");
+    }
+
+    abstract void writeImpl(Bytes source, long position) throws IOException;
+
+    @Override
+    public final long size() {
+        return Math.max(size, position());
+    }
+
+    @Override
+    public final long position() {
+        return sinkPosition + bufferPosition;
+    }
+
+    @Override
+    public final BinarySink position(long position) throws IOException {
+        Check.position(position, size(), "position");
+
+        flush();
+        size = Math.max(size, sinkPosition);
+        sinkPosition = position;
+        return this;
+    }
+
+    @Override
+    public final void writeBytes(Bytes source) throws IOException {
+        // If the data fits in the buffer, just copy it
+        if (bufferRemaining() >= source.length()) {
+            source.copyTo(buffer, bufferPosition);
+            bufferPosition += source.length();
+            return;
+        }
+
+        // If not, write out what we have, and either buffer the data, or write it straight through
+        flush();
+        if (source.length() < BUFFER_SIZE) {
+            source.copyTo(buffer, 0);
+            bufferPosition = source.length();
+            return;
+        }
+        writeImpl(source, sinkPosition);
+        sinkPosition += source.length();
+    }
+
+    @Override
+    public final void writeByte(byte value) throws IOException {
+        reserve(Byte.BYTES);
+        buffer.set(bufferPosition, value);
+        bufferPosition++;
+    }
+
+    @Override
+    public final void writeShort(short value) throws IOException {
+        reserve(Short.BYTES);
+        endian.setShort(array, bufferPosition, value);
+        bufferPosition += Short.BYTES;
+    }
+
+    @Override
+    public final void writeInt(int value) throws IOException {
+        reserve(Integer.BYTES);
+        endian.setInt(array, bufferPosition, value);
+        bufferPosition += Integer.BYTES;
+    }
+
+    @Override
+    public final void writeLong(long value) throws IOException {
+        reserve(Long.BYTES);
+        endian.setLong(array, bufferPosition, value);
+        bufferPosition += Long.BYTES;
+    }
+
+    @Override
+    final ByteBuffer writeBuffer(int maxLength, int unit) throws IOException {
+        reserve(unit);
+        int length = Math.min(maxLength, bufferRemaining() / unit * unit);
+        var result = buffer.slice(bufferPosition, length).asMutableBuffer().order(order());
+        bufferPosition += length;
+        return result;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        if (bufferPosition == 0) {
+            return;
+        }
+
+        writeImpl(buffer.slice(0, bufferPosition), sinkPosition);
+        sinkPosition += bufferPosition;
+        bufferPosition = 0;
+        size = Math.max(size, sinkPosition);
+    }
+
+    private void reserve(int length) throws IOException {
+        if (bufferRemaining() < length) {
+            flush();
+        }
+    }
+
+    private int bufferRemaining() {
+        return BUFFER_SIZE - bufferPosition;
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+    }
+}
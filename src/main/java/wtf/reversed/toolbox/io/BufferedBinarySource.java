@@ -4,20 +4,54 @@ import wtf.reversed.toolbox.collect.*;
 import wtf.reversed.toolbox.util.*;
 
 import java.io.*;
+import java.nio.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.*;
 
 abstract class BufferedBinarySource extends BinarySource {
-    private static final int BUFFER_SIZE = 0x2000;
-    private final Bytes.Mutable buffer = Bytes.allocate(BUFFER_SIZE);
+    private final BufferPolicy policy;
+    private Bytes.Mutable buffer;
+    private byte[] array; // Backing array of the buffer, for the primitive reads
+    private Bytes.Mutable storage = Bytes.allocate(0); // Largest buffer so far, smaller buffers are views of it
     private long sourcePosition = 0; // Always points to buffer[0]
     private int bufferPosition = 0; // Points to the next byte to read
     private int bufferLength = 0; // Number of bytes in the buffer
 
+    // Used to drive the adaptive buffer size
+    private int sequentialReads = 0;
+    private long refills = 0;
+    private long readAheads = 0;
+    private long seeks = 0;
+    private long grows = 0;
+    private long shrinks = 0;
+
+    // Only recorded when enabled, and updated from the read-ahead thread as well
+    private final LongAdder bytesRead = new LongAdder();
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder readTimeNanos = new LongAdder();
+
+    // Pending background read of the data following the buffer
+    private FutureTask<Integer> readAhead;
+    private Bytes.Mutable readAheadBuffer;
+    private long readAheadPosition = -1;
+
     BufferedBinarySource(long size) {
+        this(size, BufferPolicy.DEFAULT);
+    }
+
+    BufferedBinarySource(long size, BufferPolicy policy) {
         super(size);
+        this.policy = Check.nonNull(policy, "policy");
+        setBuffer(Bytes.allocate(policy.minimumSize()));
     }
 
     abstract int readImpl(Bytes.Mutable target, long position) throws IOException;
 
+    final BufferPolicy policy() {
+        return policy;
+    }
+
     @Override
     public final long position() {
         return sourcePosition + bufferPosition;
@@ -30,15 +64,39 @@ abstract class BufferedBinarySource extends BinarySource {
         if (position >= sourcePosition && position < sourcePosition + bufferLength) {
             // If we fit in the current buffer, just adjust the position
             bufferPosition = (int) (position - sourcePosition);
-        } else {
-            // If not, move the channel position and mark the buffer empty
-            sourcePosition = position;
-            bufferPosition = 0;
-            bufferLength = 0;
+            return this;
         }
+
+        // A prefetch of anything else is of no use anymore
+        if (position != readAheadPosition) {
+            dropReadAhead();
+        }
+
+        // A jump that doesn't continue where the buffer left off breaks a sequential scan
+        if (position != sourcePosition + bufferLength) {
+            seeks++;
+            sequentialReads = 0;
+            if (policy.isAdaptive() && buffer.length() > policy.minimumSize()) {
+                setBuffer(resized(Math.max(buffer.length() / 2, policy.minimumSize())));
+                shrinks++;
+            }
+        }
+
+        // Move the channel position and mark the buffer empty
+        sourcePosition = position;
+        bufferPosition = 0;
+        bufferLength = 0;
         return this;
     }
 
+    @Override
+    public final Optional<ReadStats> readStats() {
+        return Optional.of(new ReadStats(
+            buffer.length(), refills, readAheads, seeks, grows, shrinks,
+            bytesRead.sum(), reads.sum(), readTimeNanos.sum()
+        ));
+    }
+
     @Override
     public final void readBytes(Bytes.Mutable target) throws IOException {
         // If the buffer has enough data, just copy the data and return
@@ -63,7 +121,7 @@ abstract class BufferedBinarySource extends BinarySource {
 
         // If the data we want to read fits in a single buffer, do a refill and copy
         int targetRemaining = target.length() - targetPosition;
-        if (targetRemaining < BUFFER_SIZE) {
+        if (targetRemaining < buffer.length()) {
             refill(targetRemaining); // Make sure we have enough data in the buffer
             buffer.slice(bufferPosition, targetRemaining).copyTo(target, targetPosition);
             bufferPosition += targetRemaining;
@@ -71,17 +129,83 @@ abstract class BufferedBinarySource extends BinarySource {
         }
 
         // If not, do a straight read, buffer is emptied
-        int read = readImpl(target.slice(targetPosition, targetRemaining), sourcePosition);
+        dropReadAhead();
+        int read = read(target.slice(targetPosition, targetRemaining), sourcePosition);
         if (read != targetRemaining) {
             throw new EOFException("Unexpected end of stream, expected " + targetRemaining + " bytes, got " + read);
         }
         sourcePosition += read;
+        sequentialReads++;
+    }
+
+    @Override
+    final ByteBuffer readBuffer(int maxLength, int unit) throws IOException {
+        if (unit > buffer.length()) {
+            return readSliceImpl(unit).asBuffer().order(order());
+        }
+
+        refill(unit);
+        int length = Math.min(maxLength, bufferRemaining() / unit * unit);
+        var result = buffer.slice(bufferPosition, length).asBuffer().order(order());
+        bufferPosition += length;
+        return result;
+    }
+
+    @Override
+    final Bytes readWindow(int count) throws IOException {
+        if (count > buffer.length()) {
+            return readSliceImpl(count);
+        }
+
+        refill(count);
+        var result = buffer.slice(bufferPosition, count);
+        bufferPosition += count;
+        return result;
+    }
+
+    @Override
+    final Bytes peekWindow(int count) throws IOException {
+        refill((int) Math.min(Math.min(count, buffer.length()), remaining()));
+        return buffer.slice(bufferPosition, bufferRemaining());
+    }
+
+    @Override
+    final void skipWindow(int count) {
+        bufferPosition += count;
+    }
+
+    @Override
+    final Bytes readTerminated(int unit) throws IOException {
+        ByteArrayOutputStream result = null;
+        while (true) {
+            refill(unit);
+            var window = buffer.slice(bufferPosition, bufferRemaining() / unit * unit);
+            int index = NullTerminators.indexOf(window, unit);
+
+            // If the whole string is in the buffer, decode straight from it
+            if (index >= 0 && result == null) {
+                bufferPosition += index + unit;
+                return window.slice(0, index);
+            }
+
+            // If not, collect the string across refills
+            if (result == null) {
+                result = new ByteArrayOutputStream();
+            }
+            int length = index >= 0 ? index : window.length();
+            result.writeBytes(window.slice(0, length).toArray());
+            bufferPosition += length;
+            if (index >= 0) {
+                bufferPosition += unit;
+                return Bytes.wrap(result.toByteArray());
+            }
+        }
     }
 
     @Override
     public final byte readByte() throws IOException {
         refill(Byte.BYTES);
-        byte result = buffer.get(bufferPosition);
+        byte result = array[bufferPosition];
         bufferPosition++;
         return result;
     }
@@ -89,25 +213,25 @@ abstract class BufferedBinarySource extends BinarySource {
     @Override
     public final short readShort() throws IOException {
         refill(Short.BYTES);
-        short result = buffer.getShort(bufferPosition);
+        short result = endian.getShort(array, bufferPosition);
         bufferPosition += Short.BYTES;
-        return bigEndian ? Short.reverseBytes(result) : result;
+        return result;
     }
 
     @Override
     public final int readInt() throws IOException {
         refill(Integer.BYTES);
-        int result = buffer.getInt(bufferPosition);
+        int result = endian.getInt(array, bufferPosition);
         bufferPosition += Integer.BYTES;
-        return bigEndian ? Integer.reverseBytes(result) : result;
+        return result;
     }
 
     @Override
     public final long readLong() throws IOException {
         refill(Long.BYTES);
-        long result = buffer.getLong(bufferPosition);
+        long result = endian.getLong(array, bufferPosition);
         bufferPosition += Long.BYTES;
-        return bigEndian ? Long.reverseBytes(result) : result;
+        return result;
     }
 
     private void refill(int length) throws IOException {
@@ -116,16 +240,32 @@ abstract class BufferedBinarySource extends BinarySource {
             return;
         }
 
-        // First we have to move the leftover data to the front
-        buffer.slice(bufferPosition, remaining).copyTo(buffer, 0);
+        // First we have to move the leftover data to the front, into a bigger buffer if we're scanning
+        var target = buffer;
+        if (policy.isAdaptive() && sequentialReads >= 2 && buffer.length() < policy.maximumSize()) {
+            target = resized((int) Math.min(buffer.length() * 2L, policy.maximumSize()));
+            grows++;
+        }
+        buffer.slice(bufferPosition, remaining).copyTo(target, 0);
+        setBuffer(target);
         sourcePosition += bufferPosition;
         bufferPosition = 0;
         bufferLength = remaining;
+        sequentialReads++;
+        refills++;
 
-        // Then we can copy in new data from the channel
-        Bytes.Mutable target = buffer.slice(remaining, BUFFER_SIZE - remaining);
-        int read = readImpl(target, sourcePosition + remaining);
+        // Then we can copy in new data, preferably from the read-ahead, but never past the end
+        int available = (int) Math.min(buffer.length() - remaining, size - sourcePosition - remaining);
+        int read = awaitReadAhead(sourcePosition + remaining);
+        if (read >= 0) {
+            read = Math.min(read, available);
+            readAheadBuffer.slice(0, read).copyTo(buffer, remaining);
+            readAheads++;
+        } else {
+            read = read(buffer.slice(remaining, available), sourcePosition + remaining);
+        }
         bufferLength += read;
+        startReadAhead();
 
         // Final check if we read enough data
         if (bufferRemaining() < length) {
@@ -133,12 +273,113 @@ abstract class BufferedBinarySource extends BinarySource {
         }
     }
 
+    private int read(Bytes.Mutable target, long position) throws IOException {
+        if (!policy.metrics()) {
+            return readImpl(target, position);
+        }
+
+        var event = new SourceReadEvent();
+        event.begin();
+        long start = System.nanoTime();
+        int read = readImpl(target, position);
+        readTimeNanos.add(System.nanoTime() - start);
+        reads.increment();
+        bytesRead.add(Math.max(read, 0));
+
+        event.end();
+        if (event.shouldCommit()) {
+            event.source = getClass().getSimpleName();
+            event.position = position;
+            event.requested = target.length();
+            event.read = read;
+            event.commit();
+        }
+        return read;
+    }
+
+    private void startReadAhead() {
+        long position = sourcePosition + bufferLength;
+        if (!policy.readAhead() || position >= size) {
+            return;
+        }
+
+        if (readAheadBuffer == null || readAheadBuffer.length() < buffer.length()) {
+            readAheadBuffer = Bytes.allocate(buffer.length());
+        }
+        var target = readAheadBuffer.slice(0, (int) Math.min(buffer.length(), size - position));
+        readAheadPosition = position;
+        readAhead = new FutureTask<>(() -> read(target, position));
+        Thread.ofVirtual().name("read-ahead").start(readAhead);
+    }
+
+    /**
+     * Waits for a pending read-ahead of the data at {@code position}, and returns the number of bytes it read into
+     * the read-ahead buffer. A read-ahead of anything else is dropped without waiting, and {@code -1} is returned.
+     */
+    private int awaitReadAhead(long position) throws IOException {
+        if (readAhead == null) {
+            return -1;
+        }
+        if (readAheadPosition != position) {
+            dropReadAhead();
+            return -1;
+        }
+
+        try {
+            int read = readAhead.get();
+            readAhead = null;
+            return read;
+        } catch (ExecutionException e) {
+            // Let the synchronous read run into the same error, if it still happens
+            readAhead = null;
+            return -1;
+        } catch (InterruptedException e) {
+            dropReadAhead();
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while waiting for read-ahead");
+        }
+    }
+
+    /**
+     * Abandons a pending read-ahead. It isn't interrupted, as that would close a file channel, so it may still be
+     * writing into its buffer, which is left to it, and the next read-ahead allocates a new one.
+     */
+    private void dropReadAhead() {
+        if (readAhead == null) {
+            return;
+        }
+        readAhead.cancel(false);
+        readAhead = null;
+        readAheadBuffer = null;
+        readAheadPosition = -1;
+    }
+
+    /**
+     * Returns a buffer of {@code length} bytes. An adaptive buffer keeps the largest storage it had, and sizes it down
+     * with a view, so seeking around doesn't allocate a new buffer every time.
+     */
+    private Bytes.Mutable resized(int length) {
+        if (length <= storage.length()) {
+            return storage.slice(0, length);
+        }
+        return Bytes.allocate(length);
+    }
+
+    private void setBuffer(Bytes.Mutable buffer) {
+        if (buffer.length() > storage.length()) {
+            storage = buffer;
+        }
+        this.buffer = buffer;
+        this.array = buffer.asMutableBuffer().array();
+    }
+
     private int bufferRemaining() {
         return bufferLength - bufferPosition;
     }
 
     @Override
     public void close() throws IOException {
+        dropReadAhead();
         sourcePosition = 0;
         bufferPosition = 0;
         bufferLength = 0;
@@ -0,0 +1,110 @@
+package wtf.reversed.toolbox.io;
+
+import wtf.reversed.toolbox.collect.*;
+import wtf.reversed.toolbox.util.*;
+
+import java.nio.*;
+
+public final class BytesBinarySink extends BinarySink {
+    private Bytes.Mutable bytes;
+    private byte[] array; // Backing array of the bytes, for the primitive writes
+    private int position = 0;
+    private int size = 0;
+
+    BytesBinarySink(int capacity) {
+        setBytes(Bytes.allocate(Check.positiveOrZero(capacity, "capacity")));
+    }
+
+    /**
+     * Returns the bytes written so far. The result shares storage with this sink, so writes that overwrite
+     * existing data may show up in it.
+     */
+    public Bytes toBytes() {
+        return bytes.slice(0, size);
+    }
+
+    @Override
+    public long size() {
+        return size;
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public BytesBinarySink position(long position) {
+        this.position = Check.position(Math.toIntExact(position), size, "position");
+        return this;
+    }
+
+    @Override
+    public void writeBytes(Bytes source) {
+        int offset = reserve(source.length());
+        source.copyTo(bytes, offset);
+    }
+
+    @Override
+    public void writeByte(byte value) {
+        int offset = reserve(Byte.BYTES);
+        array[offset] = value;
+    }
+
+    @Override
+    public void writeShort(short value) {
+        int offset = reserve(Short.BYTES);
+        endian.setShort(array, offset, value);
+    }
+
+    @Override
+    public void writeInt(int value) {
+        int offset = reserve(Integer.BYTES);
+        endian.setInt(array, offset, value);
+    }
+
+    @Override
+    public void writeLong(long value) {
+        int offset = reserve(Long.BYTES);
+        endian.setLong(array, offset, value);
+    }
+
+    @Override
+    ByteBuffer writeBuffer(int maxLength, int unit) {
+        int offset = reserve(maxLength);
+        return bytes.slice(offset, maxLength).asMutableBuffer().order(order());
+    }
+
+    /**
+     * Makes room for {@code length} bytes at the current position, and returns the offset to write them to. This
+     * may replace the backing array, so it has to be called before reading {@link #array}.
+     */
+    private int reserve(int length) {
+        int end = Math.addExact(position, length);
+        if (end > array.length) {
+            var grown = Bytes.allocate(Math.max(end, (int) Math.min(array.length * 2L, Integer.MAX_VALUE - 8)));
+            bytes.slice(0, size).copyTo(grown, 0);
+            setBytes(grown);
+        }
+
+        int offset = position;
+        position = end;
+        size = Math.max(size, end);
+        return offset;
+    }
+
+    private void setBytes(Bytes.Mutable bytes) {
+        this.bytes = bytes;
+        this.array = bytes.asMutableBuffer().array();
+    }
+
+    @Override
+    public void flush() {
+        // do nothing
+    }
+
+    @Override
+    public void close() {
+        // do nothing
+    }
+}
@@ -3,6 +3,9 @@ package wtf.reversed.toolbox.io;
 import wtf.reversed.toolbox.collect.*;
 import wtf.reversed.toolbox.util.*;
 
+import java.io.*;
+import java.nio.*;
+
 final class BytesBinarySource extends BinarySource {
     private final Bytes bytes;
     private int position = 0;
@@ -29,6 +32,52 @@ final class BytesBinarySource extends BinarySource {
         position += target.length();
     }
 
+    @Override
+    void readAtImpl(long position, Bytes.Mutable target) {
+        bytes.slice(Math.toIntExact(position), target.length()).copyTo(target, 0);
+    }
+
+    @Override
+    public BinarySource slice(long offset, long length) {
+        Check.fromIndexSize(offset, length, size);
+        return new BytesBinarySource(bytes.slice((int) offset, (int) length)).order(order());
+    }
+
+    @Override
+    ByteBuffer readBuffer(int maxLength, int unit) {
+        var result = bytes.slice(position, maxLength).asBuffer().order(order());
+        position += maxLength;
+        return result;
+    }
+
+    @Override
+    Bytes readTerminated(int unit) throws EOFException {
+        var window = bytes.slice(position, (bytes.length() - position) / unit * unit);
+        int index = NullTerminators.indexOf(window, unit);
+        if (index < 0) {
+            throw new EOFException("Unexpected end of stream, string is not terminated");
+        }
+        position += index + unit;
+        return window.slice(0, index);
+    }
+
+    @Override
+    Bytes peekWindow(int count) {
+        return bytes.slice(position, bytes.length() - position);
+    }
+
+    @Override
+    void skipWindow(int count) {
+        position += count;
+    }
+
+    @Override
+    Bytes readSliceImpl(int count) {
+        var result = bytes.slice(position, count);
+        position += count;
+        return result;
+    }
+
     @Override
     public byte readByte() {
         byte result = bytes.get(position);
@@ -38,23 +87,23 @@ final class BytesBinarySource extends BinarySource {
 
     @Override
     public short readShort() {
-        var result = bytes.getShort(position);
+        var result = endian.getShort(bytes, position);
         position += Short.BYTES;
-        return bigEndian ? Short.reverseBytes(result) : result;
+        return result;
     }
 
     @Override
     public int readInt() {
-        var result = bytes.getInt(position);
+        var result = endian.getInt(bytes, position);
         position += Integer.BYTES;
-        return bigEndian ? Integer.reverseBytes(result) : result;
+        return result;
     }
 
     @Override
     public long readLong() {
-        var result = bytes.getLong(position);
+        var result = endian.getLong(bytes, position);
         position += Long.BYTES;
-        return bigEndian ? Long.reverseBytes(result) : result;
+        return result;
     }
 
     @Override
@@ -0,0 +1,110 @@
+package wtf.reversed.toolbox.io;
+
+import wtf.reversed.toolbox.collect.*;
+import wtf.reversed.toolbox.compress.*;
+import wtf.reversed.toolbox.util.*;
+
+import java.io.*;
+import java.util.*;
+
+final class ChunkedBinarySource extends BufferedBinarySource {
+    private final BinarySource compressed;
+    private final Decompressor decompressor;
+    private final long[] offsets;
+    private final int chunkSize;
+    private final long cacheSize;
+
+    // Decoded chunks, in least recently used order
+    private final LinkedHashMap<Integer, Bytes> cache = new LinkedHashMap<>(16, 0.75f, true);
+    private long cachedBytes = 0;
+
+    ChunkedBinarySource(BinarySource compressed, Decompressor decompressor, Longs offsets, int chunkSize, long size, long cacheSize) {
+        super(size);
+        this.compressed = Check.nonNull(compressed, "compressed");
+        this.decompressor = Check.nonNull(decompressor, "decompressor");
+        this.offsets = offsets.toArray();
+        this.chunkSize = Check.positive(chunkSize, "chunkSize");
+        this.cacheSize = Check.positiveOrZero(cacheSize, "cacheSize");
+
+        long chunkCount = (size + chunkSize - 1) / chunkSize;
+        Check.argument(this.offsets.length == chunkCount + 1, () -> "Expected " + (chunkCount + 1) + " chunk offsets, but got " + this.offsets.length);
+        for (int i = 0; i < chunkCount; i++) {
+            Check.fromToIndex(this.offsets[i], this.offsets[i + 1], compressed.size());
+        }
+    }
+
+    @Override
+    int readImpl(Bytes.Mutable target, long position) throws IOException {
+        int length = (int) Math.min(target.length(), size - position);
+        readAtImpl(position, target.slice(0, length));
+        return length;
+    }
+
+    @Override
+    void readAtImpl(long position, Bytes.Mutable target) throws IOException {
+        for (int read = 0; read < target.length(); ) {
+            long current = position + read;
+            var chunk = chunk(Math.toIntExact(current / chunkSize));
+            int offset = (int) (current % chunkSize);
+            int length = Math.min(chunk.length() - offset, target.length() - read);
+            chunk.slice(offset, length).copyTo(target, read);
+            read += length;
+        }
+    }
+
+    private Bytes chunk(int index) throws IOException {
+        synchronized (cache) {
+            var chunk = cache.get(index);
+            if (chunk != null) {
+                return chunk;
+            }
+        }
+
+        // Decode outside the lock, so positional reads of different chunks can run in parallel
+        var chunk = decode(index);
+        synchronized (cache) {
+            if (cache.putIfAbsent(index, chunk) == null) {
+                cachedBytes += chunk.length();
+                evict(index);
+            }
+        }
+        return chunk;
+    }
+
+    private Bytes decode(int index) throws IOException {
+        int length = (int) Math.min(chunkSize, size - (long) index * chunkSize);
+        var src = Bytes.allocate(Math.toIntExact(offsets[index + 1] - offsets[index]));
+        compressed.readAt(offsets[index], src);
+
+        // Chunks that don't compress are usually stored as is
+        if (src.length() == length) {
+            return src;
+        }
+        var chunk = decompressor.decompress(src, length);
+        if (chunk.length() != length) {
+            throw new EOFException("Chunk " + index + " decoded to " + chunk.length() + " bytes, expected " + length);
+        }
+        return chunk;
+    }
+
+    private void evict(int keep) {
+        var iterator = cache.entrySet().iterator();
+        while (cachedBytes > cacheSize && iterator.hasNext()) {
+            var entry = iterator.next();
+            if (entry.getKey() != keep) {
+                cachedBytes -= entry.getValue().length();
+                iterator.remove();
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        super.close();
+        synchronized (cache) {
+            cache.clear();
+            cachedBytes = 0;
+        }
+        compressed.close();
+    }
+}
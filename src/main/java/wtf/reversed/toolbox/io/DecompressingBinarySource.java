@@ -0,0 +1,68 @@
+package wtf.reversed.toolbox.io;
+
+import wtf.reversed.toolbox.collect.*;
+import wtf.reversed.toolbox.compress.*;
+import wtf.reversed.toolbox.util.*;
+
+import java.io.*;
+
+final class DecompressingBinarySource extends BufferedBinarySource {
+    private final BinarySource compressed;
+    private final Decompressor decompressor;
+    private InputStream stream;
+    private long streamPosition; // Position of the next byte the stream will return
+
+    DecompressingBinarySource(BinarySource compressed, Decompressor decompressor, long size) {
+        super(size);
+        this.compressed = Check.nonNull(compressed, "compressed");
+        this.decompressor = Check.nonNull(decompressor, "decompressor");
+    }
+
+    @Override
+    int readImpl(Bytes.Mutable target, long position) throws IOException {
+        decode(position, target);
+        return target.length();
+    }
+
+    @Override
+    void readAtImpl(long position, Bytes.Mutable target) throws IOException {
+        decode(position, target);
+    }
+
+    private synchronized void decode(long position, Bytes.Mutable target) throws IOException {
+        // The stream can only go forward, so going back means starting over
+        if (stream == null || position < streamPosition) {
+            restart();
+        }
+        if (position > streamPosition) {
+            stream.skipNBytes(position - streamPosition);
+            streamPosition = position;
+        }
+
+        var buffer = target.asMutableBuffer();
+        int read = stream.readNBytes(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        streamPosition += read;
+        if (read != target.length()) {
+            throw new EOFException("Unexpected end of stream, expected " + target.length() + " bytes, got " + read);
+        }
+    }
+
+    private void restart() throws IOException {
+        if (stream != null) {
+            stream.close();
+        }
+        compressed.position(0);
+        stream = decompressor.decompress(compressed.asInputStream(), size);
+        streamPosition = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        super.close();
+        if (stream != null) {
+            stream.close();
+            stream = null;
+        }
+        compressed.close();
+    }
+}
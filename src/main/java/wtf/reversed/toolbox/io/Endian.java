@@ -0,0 +1,227 @@
+package wtf.reversed.toolbox.io;
+
+import wtf.reversed.toolbox.collect.*;
+
+import java.lang.foreign.*;
+import java.lang.invoke.*;
+import java.nio.*;
+
+/**
+ * Primitive loads and stores in one byte order, straight from an array, segment or {@link Bytes}.
+ * <p>
+ * Sources and sinks pick the constant once, in {@code order()}, so reads and writes make a single call into the
+ * accessors for that order instead of testing the byte order on every value.
+ */
+enum Endian {
+    LITTLE(ByteOrder.LITTLE_ENDIAN) {
+        @Override
+        short getShort(byte[] array, int offset) {
+            return (short) SHORT_LE.get(array, offset);
+        }
+
+        @Override
+        int getInt(byte[] array, int offset) {
+            return (int) INT_LE.get(array, offset);
+        }
+
+        @Override
+        long getLong(byte[] array, int offset) {
+            return (long) LONG_LE.get(array, offset);
+        }
+
+        @Override
+        short getShort(MemorySegment segment, long offset) {
+            return segment.get(SEGMENT_SHORT_LE, offset);
+        }
+
+        @Override
+        int getInt(MemorySegment segment, long offset) {
+            return segment.get(SEGMENT_INT_LE, offset);
+        }
+
+        @Override
+        long getLong(MemorySegment segment, long offset) {
+            return segment.get(SEGMENT_LONG_LE, offset);
+        }
+
+        @Override
+        short getShort(Bytes bytes, int offset) {
+            return bytes.getShort(offset);
+        }
+
+        @Override
+        int getInt(Bytes bytes, int offset) {
+            return bytes.getInt(offset);
+        }
+
+        @Override
+        long getLong(Bytes bytes, int offset) {
+            return bytes.getLong(offset);
+        }
+
+        @Override
+        void setShort(byte[] array, int offset, short value) {
+            SHORT_LE.set(array, offset, value);
+        }
+
+        @Override
+        void setInt(byte[] array, int offset, int value) {
+            INT_LE.set(array, offset, value);
+        }
+
+        @Override
+        void setLong(byte[] array, int offset, long value) {
+            LONG_LE.set(array, offset, value);
+        }
+
+        @Override
+        void setShort(MemorySegment segment, long offset, short value) {
+            segment.set(SEGMENT_SHORT_LE, offset, value);
+        }
+
+        @Override
+        void setInt(MemorySegment segment, long offset, int value) {
+            segment.set(SEGMENT_INT_LE, offset, value);
+        }
+
+        @Override
+        void setLong(MemorySegment segment, long offset, long value) {
+            segment.set(SEGMENT_LONG_LE, offset, value);
+        }
+    },
+    BIG(ByteOrder.BIG_ENDIAN) {
+        @Override
+        short getShort(byte[] array, int offset) {
+            return (short) SHORT_BE.get(array, offset);
+        }
+
+        @Override
+        int getInt(byte[] array, int offset) {
+            return (int) INT_BE.get(array, offset);
+        }
+
+        @Override
+        long getLong(byte[] array, int offset) {
+            return (long) LONG_BE.get(array, offset);
+        }
+
+        @Override
+        short getShort(MemorySegment segment, long offset) {
+            return segment.get(SEGMENT_SHORT_BE, offset);
+        }
+
+        @Override
+        int getInt(MemorySegment segment, long offset) {
+            return segment.get(SEGMENT_INT_BE, offset);
+        }
+
+        @Override
+        long getLong(MemorySegment segment, long offset) {
+            return segment.get(SEGMENT_LONG_BE, offset);
+        }
+
+        @Override
+        short getShort(Bytes bytes, int offset) {
+            return Short.reverseBytes(bytes.getShort(offset));
+        }
+
+        @Override
+        int getInt(Bytes bytes, int offset) {
+            return Integer.reverseBytes(bytes.getInt(offset));
+        }
+
+        @Override
+        long getLong(Bytes bytes, int offset) {
+            return Long.reverseBytes(bytes.getLong(offset));
+        }
+
+        @Override
+        void setShort(byte[] array, int offset, short value) {
+            SHORT_BE.set(array, offset, value);
+        }
+
+        @Override
+        void setInt(byte[] array, int offset, int value) {
+            INT_BE.set(array, offset, value);
+        }
+
+        @Override
+        void setLong(byte[] array, int offset, long value) {
+            LONG_BE.set(array, offset, value);
+        }
+
+        @Override
+        void setShort(MemorySegment segment, long offset, short value) {
+            segment.set(SEGMENT_SHORT_BE, offset, value);
+        }
+
+        @Override
+        void setInt(MemorySegment segment, long offset, int value) {
+            segment.set(SEGMENT_INT_BE, offset, value);
+        }
+
+        @Override
+        void setLong(MemorySegment segment, long offset, long value) {
+            segment.set(SEGMENT_LONG_BE, offset, value);
+        }
+    };
+
+    private static final VarHandle SHORT_LE = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.LITTLE_ENDIAN).withInvokeExactBehavior();
+    private static final VarHandle SHORT_BE = MethodHandles.byteArrayViewVarHandle(short[].class, ByteOrder.BIG_ENDIAN).withInvokeExactBehavior();
+    private static final VarHandle INT_LE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.LITTLE_ENDIAN).withInvokeExactBehavior();
+    private static final VarHandle INT_BE = MethodHandles.byteArrayViewVarHandle(int[].class, ByteOrder.BIG_ENDIAN).withInvokeExactBehavior();
+    private static final VarHandle LONG_LE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.LITTLE_ENDIAN).withInvokeExactBehavior();
+    private static final VarHandle LONG_BE = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.BIG_ENDIAN).withInvokeExactBehavior();
+
+    private static final ValueLayout.OfShort SEGMENT_SHORT_LE = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfShort SEGMENT_SHORT_BE = ValueLayout.JAVA_SHORT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfInt SEGMENT_INT_LE = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfInt SEGMENT_INT_BE = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfLong SEGMENT_LONG_LE = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+    private static final ValueLayout.OfLong SEGMENT_LONG_BE = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private final ByteOrder order;
+
+    Endian(ByteOrder order) {
+        this.order = order;
+    }
+
+    static Endian of(ByteOrder order) {
+        return order == ByteOrder.BIG_ENDIAN ? BIG : LITTLE;
+    }
+
+    ByteOrder order() {
+        return order;
+    }
+
+    abstract short getShort(byte[] array, int offset);
+
+    abstract int getInt(byte[] array, int offset);
+
+    abstract long getLong(byte[] array, int offset);
+
+    abstract short getShort(MemorySegment segment, long offset);
+
+    abstract int getInt(MemorySegment segment, long offset);
+
+    abstract long getLong(MemorySegment segment, long offset);
+
+    // Bytes only reads little endian, the JIT folds the reverse into the load
+    abstract short getShort(Bytes bytes, int offset);
+
+    abstract int getInt(Bytes bytes, int offset);
+
+    abstract long getLong(Bytes bytes, int offset);
+
+    abstract void setShort(byte[] array, int offset, short value);
+
+    abstract void setInt(byte[] array, int offset, int value);
+
+    abstract void setLong(byte[] array, int offset, long value);
+
+    abstract void setShort(MemorySegment segment, long offset, short value);
+
+    abstract void setInt(MemorySegment segment, long offset, int value);
+
+    abstract void setLong(MemorySegment segment, long offset, long value);
+}
@@ -0,0 +1,40 @@
+package wtf.reversed.toolbox.io;
+
+import wtf.reversed.toolbox.collect.*;
+
+import java.io.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+final class FileBinarySink extends BufferedBinarySink {
+    private final FileChannel channel;
+
+    private FileBinarySink(FileChannel channel) throws IOException {
+        super(channel.size());
+        this.channel = channel;
+    }
+
+    static FileBinarySink create(Path path) throws IOException {
+        return new FileBinarySink(FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE));
+    }
+
+    @Override
+    void writeImpl(Bytes source, long position) throws IOException {
+        var buffer = source.asBuffer();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer, position + buffer.position());
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!channel.isOpen()) {
+            return;
+        }
+        try {
+            super.close();
+        } finally {
+            channel.close();
+        }
+    }
+}
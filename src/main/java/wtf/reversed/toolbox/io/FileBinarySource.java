@@ -9,13 +9,17 @@ import java.nio.file.*;
 final class FileBinarySource extends BufferedBinarySource {
     private final FileChannel channel;
 
-    private FileBinarySource(FileChannel channel) throws IOException {
-        super(channel.size());
+    private FileBinarySource(FileChannel channel, BufferPolicy policy) throws IOException {
+        super(channel.size(), policy);
         this.channel = channel;
     }
 
     static FileBinarySource create(Path path) throws IOException {
-        return new FileBinarySource(FileChannel.open(path, StandardOpenOption.READ));
+        return create(path, BufferPolicy.DEFAULT);
+    }
+
+    static FileBinarySource create(Path path, BufferPolicy policy) throws IOException {
+        return new FileBinarySource(FileChannel.open(path, StandardOpenOption.READ), policy);
     }
 
     @Override
@@ -23,6 +27,16 @@ final class FileBinarySource extends BufferedBinarySource {
         return channel.read(target.asMutableBuffer(), position);
     }
 
+    @Override
+    void readAtImpl(long position, Bytes.Mutable target) throws IOException {
+        var buffer = target.asMutableBuffer();
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of stream, expected " + target.length() + " bytes, got " + buffer.position());
+            }
+        }
+    }
+
     @Override
     public void close() throws IOException {
         super.close();
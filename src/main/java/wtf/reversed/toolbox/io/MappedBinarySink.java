@@ -0,0 +1,101 @@
+package wtf.reversed.toolbox.io;
+
+import wtf.reversed.toolbox.collect.*;
+import wtf.reversed.toolbox.util.*;
+
+import java.io.*;
+import java.lang.foreign.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+final class MappedBinarySink extends BinarySink {
+    private final Arena arena;
+    private final MemorySegment segment;
+    private long position = 0;
+
+    private MappedBinarySink(Arena arena, MemorySegment segment) {
+        this.arena = arena;
+        this.segment = segment;
+    }
+
+    static MappedBinarySink create(Path path, long size) throws IOException {
+        Check.positiveOrZero(size, "size");
+        var arena = Arena.ofShared();
+        try (var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            channel.truncate(size);
+            var segment = channel.map(FileChannel.MapMode.READ_WRITE, 0, size, arena);
+            return new MappedBinarySink(arena, segment);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public long size() {
+        return segment.byteSize();
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public MappedBinarySink position(long position) {
+        this.position = Check.position(position, segment.byteSize(), "position");
+        return this;
+    }
+
+    @Override
+    public void writeBytes(Bytes source) {
+        segment.asSlice(position, source.length())
+            .copyFrom(MemorySegment.ofBuffer(source.asBuffer()));
+        position += source.length();
+    }
+
+    @Override
+    public void writeByte(byte value) {
+        segment.set(ValueLayout.JAVA_BYTE, position, value);
+        position += Byte.BYTES;
+    }
+
+    @Override
+    public void writeShort(short value) {
+        endian.setShort(segment, position, value);
+        position += Short.BYTES;
+    }
+
+    @Override
+    public void writeInt(int value) {
+        endian.setInt(segment, position, value);
+        position += Integer.BYTES;
+    }
+
+    @Override
+    public void writeLong(long value) {
+        endian.setLong(segment, position, value);
+        position += Long.BYTES;
+    }
+
+    @Override
+    ByteBuffer writeBuffer(int maxLength, int unit) {
+        var result = segment.asSlice(position, maxLength).asByteBuffer().order(order());
+        position += maxLength;
+        return result;
+    }
+
+    @Override
+    public void flush() {
+        segment.force();
+    }
+
+    @Override
+    public void close() {
+        if (arena.scope().isAlive()) {
+            segment.force();
+            arena.close();
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package wtf.reversed.toolbox.io;
+
+import wtf.reversed.toolbox.collect.*;
+import wtf.reversed.toolbox.util.*;
+
+import java.io.*;
+import java.lang.foreign.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.file.*;
+
+final class MappedBinarySource extends BinarySource {
+    private final Arena arena; // Only set when this source owns the mapping
+    private final MemorySegment segment;
+    private long position = 0;
+
+    private MappedBinarySource(Arena arena, MemorySegment segment) {
+        super(segment.byteSize());
+        this.arena = arena;
+        this.segment = segment;
+    }
+
+    static MappedBinarySource create(Path path) throws IOException {
+        var arena = Arena.ofShared();
+        try (var channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            var segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), arena);
+            return new MappedBinarySource(arena, segment);
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    @Override
+    public long position() {
+        return position;
+    }
+
+    @Override
+    public MappedBinarySource position(long position) {
+        this.position = Check.position(position, size, "position");
+        return this;
+    }
+
+    @Override
+    public void readBytes(Bytes.Mutable target) throws EOFException {
+        ensureAvailable(target.length());
+        readAtImpl(position, target);
+        position += target.length();
+    }
+
+    @Override
+    void readAtImpl(long position, Bytes.Mutable target) {
+        var buffer = target.asMutableBuffer();
+        MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, position, buffer.array(), buffer.arrayOffset(), target.length());
+    }
+
+    @Override
+    public BinarySource slice(long offset, long length) {
+        Check.fromIndexSize(offset, length, size);
+        return new MappedBinarySource(null, segment.asSlice(offset, length)).order(order());
+    }
+
+    @Override
+    ByteBuffer readBuffer(int maxLength, int unit) {
+        var result = segment.asSlice(position, maxLength).asByteBuffer().order(order());
+        position += maxLength;
+        return result;
+    }
+
+    @Override
+    Bytes readTerminated(int unit) throws EOFException {
+        long index = NullTerminators.indexOf(segment, position, unit);
+        if (index < 0) {
+            throw new EOFException("Unexpected end of stream, string is not terminated");
+        }
+        var result = Bytes.wrap(segment.asSlice(position, index).toArray(ValueLayout.JAVA_BYTE));
+        position += index + unit;
+        return result;
+    }
+
+    @Override
+    public byte readByte() throws EOFException {
+        ensureAvailable(Byte.BYTES);
+        var result = segment.get(ValueLayout.JAVA_BYTE, position);
+        position += Byte.BYTES;
+        return result;
+    }
+
+    @Override
+    public short readShort() throws EOFException {
+        ensureAvailable(Short.BYTES);
+        var result = endian.getShort(segment, position);
+        position += Short.BYTES;
+        return result;
+    }
+
+    @Override
+    public int readInt() throws EOFException {
+        ensureAvailable(Integer.BYTES);
+        var result = endian.getInt(segment, position);
+        position += Integer.BYTES;
+        return result;
+    }
+
+    @Override
+    public long readLong() throws EOFException {
+        ensureAvailable(Long.BYTES);
+        var result = endian.getLong(segment, position);
+        position += Long.BYTES;
+        return result;
+    }
+
+    private void ensureAvailable(int length) throws EOFException {
+        if (size - position < length) {
+            throw new EOFException("Unexpected end of stream, expected " + length + " bytes, got " + (size - position));
+        }
+    }
+
+    @Override
+    public void close() {
+        if (arena != null && arena.scope().isAlive()) {
+            arena.close();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package wtf.reversed.toolbox.io;
+
+import wtf.reversed.toolbox.collect.*;
+
+import java.lang.foreign.*;
+import java.nio.*;
+
+/**
+ * Finds null terminators of 1, 2 or 4 bytes, eight bytes at a time.
+ * <p>
+ * Each long is checked for a zero lane with the classic {@code (x - ones) & ~x & highs} trick, which never reports
+ * a lane below the first zero lane, so the number of trailing zeros gives the exact position of the terminator.
+ */
+final class NullTerminators {
+    private static final ValueLayout.OfLong LONG_LE = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.LITTLE_ENDIAN);
+
+    private NullTerminators() {
+    }
+
+    static int unit(String charset) {
+        return switch (charset) {
+            case "UTF-16", "UTF-16BE", "UTF-16LE" -> 2;
+            case "UTF-32", "UTF-32BE", "UTF-32LE" -> 4;
+            default -> 1;
+        };
+    }
+
+    /**
+     * Returns the offset of the first zero unit in {@code bytes}, or {@code -1} if there is none.
+     */
+    static int indexOf(Bytes bytes, int unit) {
+        long ones = ones(unit);
+        long highs = ones << (unit * Byte.SIZE - 1);
+
+        int offset = 0;
+        for (int limit = bytes.length() - Long.BYTES; offset <= limit; offset += Long.BYTES) {
+            long value = bytes.getLong(offset);
+            long zeros = (value - ones) & ~value & highs;
+            if (zeros != 0) {
+                return offset + Long.numberOfTrailingZeros(zeros) / (unit * Byte.SIZE) * unit;
+            }
+        }
+        for (int limit = bytes.length() - unit; offset <= limit; offset += unit) {
+            if (isZero(bytes, offset, unit)) {
+                return offset;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the offset of the first zero unit in {@code segment}, starting at {@code offset}, or {@code -1} if
+     * there is none.
+     */
+    static long indexOf(MemorySegment segment, long offset, int unit) {
+        long ones = ones(unit);
+        long highs = ones << (unit * Byte.SIZE - 1);
+
+        long start = offset;
+        for (long limit = segment.byteSize() - Long.BYTES; offset <= limit; offset += Long.BYTES) {
+            long value = segment.get(LONG_LE, offset);
+            long zeros = (value - ones) & ~value & highs;
+            if (zeros != 0) {
+                return offset - start + Long.numberOfTrailingZeros(zeros) / (unit * Byte.SIZE) * unit;
+            }
+        }
+        for (long limit = segment.byteSize() - unit; offset <= limit; offset += unit) {
+            if (isZero(segment, offset, unit)) {
+                return offset - start;
+            }
+        }
+        return -1;
+    }
+
+    private static long ones(int unit) {
+        return switch (unit) {
+            case 1 -> 0x0101010101010101L;
+            case 2 -> 0x0001000100010001L;
+            case 4 -> 0x0000000100000001L;
+            default -> throw new IllegalArgumentException("Unsupported unit: " + unit);
+        };
+    }
+
+    private static boolean isZero(Bytes bytes, int offset, int unit) {
+        for (int i = 0; i < unit; i++) {
+            if (bytes.get(offset + i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isZero(MemorySegment segment, long offset, int unit) {
+        for (int i = 0; i < unit; i++) {
+            if (segment.get(ValueLayout.JAVA_BYTE, offset + i) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
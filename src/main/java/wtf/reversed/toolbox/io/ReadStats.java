@@ -0,0 +1,53 @@
+package wtf.reversed.toolbox.io;
+
+import java.time.*;
+
+/**
+ * A snapshot of the read buffer of a buffered {@link BinarySource} and the reads it issued to its underlying
+ * storage. The buffer counters are always kept, the ones for the reads themselves only when its
+ * {@link BufferPolicy} has metrics enabled, and are zero otherwise.
+ *
+ * @param bufferSize    the current size of the buffer
+ * @param refills       the number of times the buffer was refilled from the underlying storage
+ * @param readAheads    the number of refills that were served by a prefetch
+ * @param seeks         the number of seeks that landed outside the buffer
+ * @param grows         the number of times an adaptive buffer grew
+ * @param shrinks       the number of times an adaptive buffer shrunk
+ * @param bytesRead     the number of bytes read from the underlying storage
+ * @param reads         the number of reads issued to the underlying storage
+ * @param readTimeNanos the total time spent in reads, in nanoseconds
+ */
+public record ReadStats(
+    int bufferSize,
+    long refills,
+    long readAheads,
+    long seeks,
+    long grows,
+    long shrinks,
+    long bytesRead,
+    long reads,
+    long readTimeNanos
+) {
+    public static final ReadStats EMPTY = new ReadStats(0, 0, 0, 0, 0, 0, 0, 0, 0);
+
+    public Duration readTime() {
+        return Duration.ofNanos(readTimeNanos);
+    }
+
+    /**
+     * Adds up two snapshots, the buffer size becomes the total size of both buffers.
+     */
+    public ReadStats plus(ReadStats other) {
+        return new ReadStats(
+            Math.addExact(bufferSize, other.bufferSize),
+            refills + other.refills,
+            readAheads + other.readAheads,
+            seeks + other.seeks,
+            grows + other.grows,
+            shrinks + other.shrinks,
+            bytesRead + other.bytesRead,
+            reads + other.reads,
+            readTimeNanos + other.readTimeNanos
+        );
+    }
+}
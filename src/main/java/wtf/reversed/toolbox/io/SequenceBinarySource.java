@@ -1,56 +1,233 @@
 package wtf.reversed.toolbox.io;
 
 import wtf.reversed.toolbox.collect.*;
+import wtf.reversed.toolbox.util.*;
 
 import java.io.*;
+import java.nio.*;
 import java.util.*;
 
-final class SequenceBinarySource extends BufferedBinarySource {
-    private final NavigableMap<Long, BinarySource> sources = new TreeMap<>(Long::compareUnsigned);
-    private BinarySource source;
+final class SequenceBinarySource extends BinarySource {
+    private final BinarySource[] sources;
+    private final BinarySource[] cursors; // Created on first use, so the children keep their own position and order
+    private final long[] offsets; // Start of each source, followed by the total size
+    private final Bytes.Mutable scratch = Bytes.allocate(Long.BYTES);
+    private int index = 0; // The active source
 
     SequenceBinarySource(List<? extends BinarySource> sources) {
         super(sources.stream().mapToLong(BinarySource::size).sum());
-        long offset = 0;
-        for (BinarySource source : sources) {
-            this.sources.put(offset, source);
-            offset += source.size();
+        this.sources = sources.toArray(BinarySource[]::new);
+        this.cursors = new BinarySource[this.sources.length];
+        this.offsets = new long[this.sources.length + 1];
+        for (int i = 0; i < this.sources.length; i++) {
+            this.offsets[i + 1] = this.offsets[i] + this.sources[i].size();
         }
     }
 
     @Override
-    int readImpl(Bytes.Mutable target, long position) throws IOException {
-        reposition(position);
+    public long position() {
+        return offsets[index] + cursor(index).position();
+    }
+
+    @Override
+    public SequenceBinarySource position(long position) {
+        Check.position(position, size, "position");
+        index = find(position);
+        cursor(index).position(position - offsets[index]);
+        return this;
+    }
+
+    /**
+     * Returns the combined stats of the reads through this sequence.
+     */
+    @Override
+    public Optional<ReadStats> readStats() {
+        return Arrays.stream(cursors)
+            .filter(Objects::nonNull)
+            .map(BinarySource::readStats)
+            .flatMap(Optional::stream)
+            .reduce(ReadStats::plus);
+    }
+
+    @Override
+    public void readBytes(Bytes.Mutable target) throws IOException {
+        if (remaining() < target.length()) {
+            throw new EOFException("Unexpected end of stream, expected " + target.length() + " bytes, got " + remaining());
+        }
+
         for (int read = 0; read < target.length(); ) {
-            refill(position + read);
-            int remaining = target.length() - read;
-            int size = Math.min(Math.toIntExact(source.remaining()), remaining);
-            source.readBytes(target.slice(read, size));
-            read += size;
+            var source = current();
+            int length = (int) Math.min(source.remaining(), target.length() - read);
+            source.readBytes(target.slice(read, length));
+            read += length;
+        }
+    }
+
+    @Override
+    public byte readByte() throws IOException {
+        var source = current();
+        if (source.remaining() < Byte.BYTES) {
+            throw new EOFException("Unexpected end of stream");
+        }
+        return source.readByte();
+    }
+
+    @Override
+    public short readShort() throws IOException {
+        var source = current();
+        if (source.remaining() >= Short.BYTES) {
+            return source.readShort();
+        }
+        readBytes(scratch.slice(0, Short.BYTES));
+        return endian.getShort(scratch, 0);
+    }
+
+    @Override
+    public int readInt() throws IOException {
+        var source = current();
+        if (source.remaining() >= Integer.BYTES) {
+            return source.readInt();
+        }
+        readBytes(scratch.slice(0, Integer.BYTES));
+        return endian.getInt(scratch, 0);
+    }
+
+    @Override
+    public long readLong() throws IOException {
+        var source = current();
+        if (source.remaining() >= Long.BYTES) {
+            return source.readLong();
+        }
+        readBytes(scratch.slice(0, Long.BYTES));
+        return endian.getLong(scratch, 0);
+    }
+
+    @Override
+    void readAtImpl(long position, Bytes.Mutable target) throws IOException {
+        for (int read = 0, i = find(position); read < target.length(); i++) {
+            long offset = position + read - offsets[i];
+            int length = (int) Math.min(sources[i].size() - offset, target.length() - read);
+            sources[i].readAtImpl(offset, target.slice(read, length));
+            read += length;
+        }
+    }
+
+    @Override
+    ByteBuffer readBuffer(int maxLength, int unit) throws IOException {
+        var source = current();
+        if (source.remaining() >= unit) {
+            int length = (int) Math.min(maxLength, source.remaining() / unit * unit);
+            return source.readBuffer(length, unit).order(order());
+        }
+
+        // The next unit straddles two sources
+        var result = Bytes.allocate(unit);
+        readBytes(result);
+        return result.asBuffer().order(order());
+    }
+
+    @Override
+    Bytes readTerminated(int unit) throws IOException {
+        var source = current();
+        long start = source.position();
+        try {
+            return source.readTerminated(unit);
+        } catch (EOFException e) {
+            // The string continues in the next source, so collect it one unit at a time
+            source.position(start);
+        }
+
+        var result = new ByteArrayOutputStream();
+        var chunk = scratch.slice(0, unit);
+        while (true) {
+            readBytes(chunk);
+            if (NullTerminators.indexOf(chunk, unit) == 0) {
+                return Bytes.wrap(result.toByteArray());
+            }
+            result.writeBytes(chunk.toArray());
+        }
+    }
+
+    @Override
+    Bytes readWindow(int count) throws IOException {
+        var source = current();
+        return source.remaining() >= count ? source.readWindow(count) : super.readWindow(count);
+    }
+
+    @Override
+    Bytes peekWindow(int count) throws IOException {
+        return current().peekWindow(count);
+    }
+
+    @Override
+    void skipWindow(int count) throws IOException {
+        cursor(index).skipWindow(count);
+    }
+
+    @Override
+    Bytes readSliceImpl(int count) throws IOException {
+        var source = current();
+        return source.remaining() >= count ? source.readSliceImpl(count) : super.readSliceImpl(count);
+    }
+
+    /**
+     * Returns the active source, moving on to the next one when it is exhausted.
+     */
+    private BinarySource current() {
+        var source = cursor(index);
+        while (source.remaining() == 0 && index < sources.length - 1) {
+            source = cursor(++index);
+            source.position(0);
         }
-        return target.length();
+        return source;
     }
 
-    private void refill(long position) throws EOFException {
-        if (source.remaining() == 0) {
-            reposition(position);
-            if (source.remaining() == 0) {
-                throw new EOFException();
+    /**
+     * Returns the cursor over a child, which reads in the byte order of this sequence.
+     */
+    private BinarySource cursor(int index) {
+        var cursor = cursors[index];
+        if (cursor == null) {
+            cursor = sources[index].cursor().order(order());
+            cursors[index] = cursor;
+        }
+        return cursor;
+    }
+
+    @Override
+    void orderChanged() {
+        for (BinarySource cursor : cursors) {
+            if (cursor != null) {
+                cursor.order(order());
             }
         }
     }
 
-    private void reposition(long position) {
-        var entry = sources.floorEntry(position);
-        var base = (long) entry.getKey();
-        source = entry.getValue();
-        source.position(position - base);
+    /**
+     * Returns the index of the source containing {@code position}, skipping empty sources.
+     */
+    private int find(long position) {
+        int low = 0;
+        int high = sources.length - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (offsets[mid] <= position) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
     }
 
     @Override
     public void close() throws IOException {
-        super.close();
-        for (BinarySource source : sources.values()) {
+        for (BinarySource cursor : cursors) {
+            if (cursor != null) {
+                cursor.close();
+            }
+        }
+        for (BinarySource source : sources) {
             source.close();
         }
     }
@@ -0,0 +1,37 @@
+package wtf.reversed.toolbox.io;
+
+import wtf.reversed.toolbox.collect.*;
+import wtf.reversed.toolbox.util.*;
+
+import java.io.*;
+
+final class SliceBinarySource extends BufferedBinarySource {
+    private final BinarySource source;
+    private final long offset;
+
+    SliceBinarySource(BinarySource source, long offset, long length) {
+        // Buffer the same way as the parent, so a cursor reads ahead and records metrics if its parent does
+        super(length, source instanceof BufferedBinarySource buffered ? buffered.policy() : BufferPolicy.DEFAULT);
+        this.source = source;
+        this.offset = offset;
+    }
+
+    @Override
+    int readImpl(Bytes.Mutable target, long position) throws IOException {
+        // Never read past the end of the slice, even if the parent has more
+        int length = (int) Math.min(target.length(), size - position);
+        source.readAtImpl(offset + position, target.slice(0, length));
+        return length;
+    }
+
+    @Override
+    void readAtImpl(long position, Bytes.Mutable target) throws IOException {
+        source.readAtImpl(offset + position, target);
+    }
+
+    @Override
+    public BinarySource slice(long offset, long length) {
+        Check.fromIndexSize(offset, length, size);
+        return new SliceBinarySource(source, this.offset + offset, length).order(order());
+    }
+}
@@ -0,0 +1,49 @@
+package wtf.reversed.toolbox.io;
+
+import wtf.reversed.toolbox.collect.*;
+
+import java.io.*;
+import java.util.*;
+
+final class SourceInputStream extends InputStream {
+    private final BinarySource source;
+
+    SourceInputStream(BinarySource source) {
+        this.source = source;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (source.remaining() == 0) {
+            return -1;
+        }
+        return Byte.toUnsignedInt(source.readByte());
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) {
+            return 0;
+        }
+        if (source.remaining() == 0) {
+            return -1;
+        }
+
+        int count = (int) Math.min(len, source.remaining());
+        source.readBytes(Bytes.Mutable.wrap(b, off, count));
+        return count;
+    }
+
+    @Override
+    public long skip(long n) {
+        long count = Math.clamp(n, 0, source.remaining());
+        source.position(source.position() + count);
+        return count;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(source.remaining(), Integer.MAX_VALUE);
+    }
+}
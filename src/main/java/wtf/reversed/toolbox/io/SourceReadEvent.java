@@ -0,0 +1,23 @@
+package wtf.reversed.toolbox.io;
+
+import jdk.jfr.*;
+
+@Name("wtf.reversed.toolbox.io.SourceRead")
+@Label("Binary Source Read")
+@Description("A read from the underlying storage of a buffered BinarySource")
+@Category({"Reversed Toolbox", "I/O"})
+final class SourceReadEvent extends Event {
+    @Label("Source")
+    String source;
+
+    @Label("Position")
+    long position;
+
+    @Label("Requested")
+    @DataAmount
+    int requested;
+
+    @Label("Read")
+    @DataAmount
+    int read;
+}
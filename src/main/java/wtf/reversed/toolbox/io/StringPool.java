@@ -0,0 +1,102 @@
+package wtf.reversed.toolbox.io;
+
+import wtf.reversed.toolbox.collect.*;
+import wtf.reversed.toolbox.hash.*;
+import wtf.reversed.toolbox.util.*;
+
+import java.nio.charset.*;
+
+/**
+ * Deduplicates strings by their raw bytes, for tables that repeat the same names over and over.
+ * <p>
+ * A lookup hashes the raw bytes and compares them to the bytes of the cached string with the same hash, so a hit
+ * returns the cached instance without decoding anything. A pool is not thread-safe, and keeps every string it has
+ * seen until it is cleared.
+ */
+public final class StringPool {
+    private final Charset charset;
+    private final HashFunction hashFunction;
+    private long[] hashes;
+    private Entry[] entries;
+    private int size;
+
+    private StringPool(Charset charset, HashFunction hashFunction) {
+        this.charset = Check.nonNull(charset, "charset");
+        this.hashFunction = Check.nonNull(hashFunction, "hashFunction");
+        clear();
+    }
+
+    public static StringPool create() {
+        return create(StandardCharsets.UTF_8);
+    }
+
+    public static StringPool create(Charset charset) {
+        return create(charset, HashFunction.xxHash64(0));
+    }
+
+    public static StringPool create(Charset charset, HashFunction hashFunction) {
+        return new StringPool(charset, hashFunction);
+    }
+
+    public Charset charset() {
+        return charset;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public String intern(Bytes bytes) {
+        if (bytes.length() == 0) {
+            return "";
+        }
+
+        long hash = hashFunction.hash(bytes).asLong();
+        int mask = entries.length - 1;
+        int index = (int) (hash ^ (hash >>> 32)) & mask;
+        for (Entry entry; (entry = entries[index]) != null; index = (index + 1) & mask) {
+            if (hashes[index] == hash && entry.bytes().equals(bytes)) {
+                return entry.value();
+            }
+        }
+
+        // The bytes might point into a read buffer, so take a copy
+        var value = bytes.toString(charset);
+        hashes[index] = hash;
+        entries[index] = new Entry(Bytes.wrap(bytes.toArray()), value);
+        if (++size > entries.length / 2) {
+            grow();
+        }
+        return value;
+    }
+
+    public void clear() {
+        hashes = new long[16];
+        entries = new Entry[16];
+        size = 0;
+    }
+
+    private void grow() {
+        var oldHashes = hashes;
+        var oldEntries = entries;
+        hashes = new long[oldHashes.length * 2];
+        entries = new Entry[oldEntries.length * 2];
+
+        int mask = entries.length - 1;
+        for (int i = 0; i < oldEntries.length; i++) {
+            if (oldEntries[i] == null) {
+                continue;
+            }
+            long hash = oldHashes[i];
+            int index = (int) (hash ^ (hash >>> 32)) & mask;
+            while (entries[index] != null) {
+                index = (index + 1) & mask;
+            }
+            hashes[index] = hash;
+            entries[index] = oldEntries[i];
+        }
+    }
+
+    private record Entry(Bytes bytes, String value) {
+    }
+}
@@ -0,0 +1,22 @@
+package wtf.reversed.toolbox.io;
+
+import java.lang.annotation.*;
+
+/**
+ * Marks a record as a binary struct, whose components are read in declaration order.
+ * <p>
+ * The struct processor generates a {@link BinarySource.Mapper} named {@code <Record>Mapper} next to the record.
+ * Primitive components ({@code byte}, {@code short}, {@code int}, {@code long}, {@code float} and {@code double})
+ * are read with the matching {@code read} method of the source, and nested structs with their own mapper. Any other
+ * component type must declare a {@code static read(BinarySource)} method, which is called in between.
+ * <p>
+ * The processor ships in this jar, but since JDK 23 javac no longer runs processors it finds on the class path by
+ * itself, so without further setup no mappers are generated. Either compile with {@code -proc:full}, or put this jar
+ * on the processor path, which for Maven means listing it under {@code annotationProcessorPaths} of the
+ * {@code maven-compiler-plugin}.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface Struct {
+}
@@ -0,0 +1,147 @@
+package wtf.reversed.toolbox.processor;
+
+import javax.annotation.processing.*;
+import javax.lang.model.*;
+import javax.lang.model.element.*;
+import javax.lang.model.type.*;
+import javax.lang.model.util.*;
+import javax.tools.*;
+import java.io.*;
+import java.util.*;
+
+/**
+ * Generates a {@code BinarySource.Mapper} for every record annotated with {@code @Struct}.
+ * <p>
+ * Primitive components are read with the matching {@code BinarySource} method, which on a buffered source is a
+ * single load from the buffer, without allocating. Nested structs go through their own mapper, everything else is
+ * delegated to the static {@code read(BinarySource)} method of its type.
+ */
+@SupportedAnnotationTypes(StructProcessor.STRUCT)
+public final class StructProcessor extends AbstractProcessor {
+    static final String STRUCT = "wtf.reversed.toolbox.io.Struct";
+    private static final String BINARY_SOURCE = "wtf.reversed.toolbox.io.BinarySource";
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.RECORD) {
+                    error(element, "@Struct can only be applied to records");
+                    continue;
+                }
+                try {
+                    generate((TypeElement) element);
+                } catch (IllegalArgumentException e) {
+                    error(element, e.getMessage());
+                } catch (IOException e) {
+                    error(element, "Could not write mapper: " + e.getMessage());
+                }
+            }
+        }
+        return true;
+    }
+
+    private void generate(TypeElement record) throws IOException {
+        if (!record.getTypeParameters().isEmpty()) {
+            throw new IllegalArgumentException("Generic records are not supported");
+        }
+
+        String packageName = processingEnv.getElementUtils().getPackageOf(record).getQualifiedName().toString();
+        String recordName = record.getQualifiedName().toString();
+        String mapperName = mapperName(record);
+
+        var body = new StringBuilder();
+        var arguments = new ArrayList<String>();
+        for (RecordComponentElement component : record.getRecordComponents()) {
+            body.append("        ").append(component.asType()).append(" $").append(component.getSimpleName())
+                .append(" = ").append(readCall(component.asType())).append(";\n");
+            arguments.add("$" + component.getSimpleName());
+        }
+
+        String modifier = record.getModifiers().contains(Modifier.PUBLIC) ? "public " : "";
+        var source = new StringBuilder();
+        if (!packageName.isEmpty()) {
+            source.append("package ").append(packageName).append(";\n\n");
+        }
+        source
+            .append(modifier).append("final class ").append(mapperName)
+            .append(" implements ").append(BINARY_SOURCE).append(".Mapper<").append(recordName).append("> {\n")
+            .append("    ").append(modifier).append("static final ").append(mapperName).append(" INSTANCE = new ").append(mapperName).append("();\n\n")
+            .append("    private ").append(mapperName).append("() {\n")
+            .append("    }\n\n")
+            .append("    @Override\n")
+            .append("    public ").append(recordName).append(" read(").append(BINARY_SOURCE).append(" source) throws java.io.IOException {\n")
+            .append(body)
+            .append("        return new ").append(recordName).append("(").append(String.join(", ", arguments)).append(");\n")
+            .append("    }\n")
+            .append("}\n");
+
+        String qualifiedName = packageName.isEmpty() ? mapperName : packageName + "." + mapperName;
+        JavaFileObject file = processingEnv.getFiler().createSourceFile(qualifiedName, record);
+        try (Writer writer = file.openWriter()) {
+            writer.write(source.toString());
+        }
+    }
+
+    private String readCall(TypeMirror type) {
+        return switch (type.getKind()) {
+            case BYTE -> "source.readByte()";
+            case SHORT -> "source.readShort()";
+            case INT -> "source.readInt()";
+            case LONG -> "source.readLong()";
+            case FLOAT -> "source.readFloat()";
+            case DOUBLE -> "source.readDouble()";
+            case DECLARED -> readCall((DeclaredType) type);
+            default -> throw new IllegalArgumentException("Unsupported component type " + type);
+        };
+    }
+
+    private String readCall(DeclaredType type) {
+        var element = (TypeElement) type.asElement();
+        if (isStruct(element)) {
+            String packageName = processingEnv.getElementUtils().getPackageOf(element).getQualifiedName().toString();
+            String mapperName = packageName.isEmpty() ? mapperName(element) : packageName + "." + mapperName(element);
+            return mapperName + ".INSTANCE.read(source)";
+        }
+
+        for (ExecutableElement method : ElementFilter.methodsIn(element.getEnclosedElements())) {
+            if (method.getSimpleName().contentEquals("read")
+                && method.getModifiers().contains(Modifier.STATIC)
+                && method.getParameters().size() == 1
+                && method.getParameters().getFirst().asType().toString().equals(BINARY_SOURCE)
+                && processingEnv.getTypeUtils().isAssignable(method.getReturnType(), type)) {
+                return element.getQualifiedName() + ".read(source)";
+            }
+        }
+        throw new IllegalArgumentException("Component type " + type + " is neither a @Struct nor has a static read(BinarySource) method");
+    }
+
+    private static boolean isStruct(TypeElement element) {
+        if (element.getKind() != ElementKind.RECORD) {
+            return false;
+        }
+        for (AnnotationMirror annotation : element.getAnnotationMirrors()) {
+            if (((TypeElement) annotation.getAnnotationType().asElement()).getQualifiedName().contentEquals(STRUCT)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String mapperName(TypeElement record) {
+        var names = new ArrayDeque<String>();
+        for (Element element = record; element instanceof TypeElement; element = element.getEnclosingElement()) {
+            names.addFirst(element.getSimpleName().toString());
+        }
+        return String.join("_", names) + "Mapper";
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
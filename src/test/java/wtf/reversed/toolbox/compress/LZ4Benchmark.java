@@ -0,0 +1,41 @@
+package wtf.reversed.toolbox.compress;
+
+import wtf.reversed.toolbox.collect.*;
+
+import java.io.*;
+
+/**
+ * Measures LZ4 block decompression throughput on a text-like and a highly repetitive input. Not a unit test, run it
+ * by hand, the best of several rounds is reported. There's no other LZ4 implementation on the classpath, so the
+ * numbers are only comparable against earlier runs of this one.
+ */
+final class LZ4Benchmark {
+    private static final int SIZE = 4 * 1024 * 1024;
+    private static final int ROUNDS = 300;
+
+    static void main(String[] args) throws IOException {
+        var ls = LZ4BlockCompressorTest.ls();
+        var text = Bytes.allocate(SIZE);
+        for (int i = 0; i < SIZE; i += ls.length()) {
+            ls.slice(0, Math.min(ls.length(), SIZE - i)).copyTo(text, i);
+        }
+        var runs = Bytes.allocate(SIZE);
+        for (int i = 0; i < SIZE; i++) {
+            runs.set(i, (byte) (i / 300 % 7));
+        }
+
+        run("text", Compressor.lz4BlockHC(9).compress(text), SIZE);
+        run("runs", Compressor.lz4Block().compress(runs), SIZE);
+    }
+
+    private static void run(String name, Bytes compressed, int size) throws IOException {
+        var dst = Bytes.allocate(size);
+        long best = Long.MAX_VALUE;
+        for (int round = 0; round < ROUNDS; round++) {
+            long start = System.nanoTime();
+            Decompressor.lz4Block().decompress(compressed, dst);
+            best = Math.min(best, System.nanoTime() - start);
+        }
+        System.out.printf("%-5s ratio %5.2f  %6.2f GB/s%n", name, (double) size / compressed.length(), (double) size / best);
+    }
+}
@@ -0,0 +1,71 @@
+package wtf.reversed.toolbox.compress;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.*;
+import org.junit.jupiter.params.provider.*;
+import wtf.reversed.toolbox.collect.*;
+
+import java.io.*;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LZ4BlockCompressorTest {
+    private static final int LENGTH = 138216;
+
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1, 4, 9, 12})
+    void testRoundTrip(int level) throws IOException {
+        var compressor = level == 0 ? Compressor.lz4Block() : Compressor.lz4BlockHC(level);
+        for (var input : inputs()) {
+            var compressed = compressor.compress(input);
+            assertThat(compressed.length()).isLessThanOrEqualTo(compressor.maxCompressedLength(input.length()));
+            assertThat(Decompressor.lz4Block().decompress(compressed, input.length())).isEqualTo(input);
+        }
+    }
+
+    @Test
+    void testHighCompressionIsSmaller() throws IOException {
+        var input = ls();
+        int fast = Compressor.lz4Block().compress(input).length();
+        int high = Compressor.lz4BlockHC(9).compress(input).length();
+        assertThat(fast).isLessThan(input.length());
+        assertThat(high).isLessThan(fast);
+    }
+
+    @Test
+    void testInvalidArguments() {
+        assertThatThrownBy(() -> Compressor.lz4BlockHC(13))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Compressor.lz4Frame(13, false))
+            .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> Compressor.lz4Block().compress(Bytes.allocate(100), Bytes.allocate(100)))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static List<Bytes> inputs() throws IOException {
+        var random = new Random(42);
+        byte[] noise = new byte[100000];
+        random.nextBytes(noise);
+        byte[] runs = new byte[100000];
+        for (int i = 0; i < runs.length; i++) {
+            runs[i] = (byte) (i / 1000);
+        }
+
+        return List.of(
+            Bytes.empty(),
+            Bytes.wrap(new byte[]{1}),
+            Bytes.wrap(new byte[12]),
+            Bytes.wrap(new byte[13]),
+            Bytes.wrap(noise),
+            Bytes.wrap(runs),
+            ls()
+        );
+    }
+
+    static Bytes ls() throws IOException {
+        try (var input = LZ4BlockCompressorTest.class.getResourceAsStream("ls.lz4")) {
+            return Decompressor.lz4Frame().decompress(Bytes.wrap(input.readAllBytes()), LENGTH);
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package wtf.reversed.toolbox.compress;
 
+import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.*;
 import org.junit.jupiter.params.provider.*;
 import wtf.reversed.toolbox.collect.*;
 
+import java.io.*;
+import java.lang.foreign.*;
+import java.nio.charset.*;
 import java.security.*;
 import java.util.*;
 
@@ -39,4 +43,93 @@ class LZ4BlockDecompressorTest {
         assertThat(HexFormat.of().formatHex(sha256.digest()))
             .isEqualTo(HASH);
     }
+
+    @Test
+    void testOverlappingMatches() throws Exception {
+        // "abc" literal, then a 20-byte match at offset 3, then "x" and a 30-byte match at offset 1
+        var src = Bytes.wrap(new byte[]{0x3F, 'a', 'b', 'c', 3, 0, 1, 0x1F, 'x', 1, 0, 11, 0x00});
+        var dst = Bytes.allocate(3 + 20 + 1 + 30);
+        decompressor.decompress(src, dst);
+
+        assertThat(new String(dst.toArray(), 0, 23, StandardCharsets.US_ASCII))
+            .isEqualTo("abcabcabcabcabcabcabcab");
+        assertThat(new String(dst.toArray(), 23, 31, StandardCharsets.US_ASCII))
+            .isEqualTo("x".repeat(31));
+    }
+
+    @Test
+    void testMalformedInput() {
+        // Match before the start of the output
+        assertThatThrownBy(() -> decompressor.decompress(Bytes.wrap(new byte[]{0x10, 'a', 2, 0}), Bytes.allocate(5)))
+            .isInstanceOf(IOException.class)
+            .hasMessage("Match before start");
+
+        // Literals past the end of the input, and a match past the end of the output
+        assertThatThrownBy(() -> decompressor.decompress(Bytes.wrap(new byte[]{0x50, 'a', 'b'}), Bytes.allocate(5)))
+            .isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decompressor.decompress(Bytes.wrap(new byte[]{0x10, 'a', 1, 0}), Bytes.allocate(4)))
+            .isInstanceOf(IOException.class);
+
+        // Empty input, and a block that ends on a match
+        assertThatThrownBy(() -> decompressor.decompress(Bytes.empty(), Bytes.allocate(4)))
+            .isInstanceOf(IOException.class);
+        assertThatThrownBy(() -> decompressor.decompress(Bytes.wrap(new byte[]{0x10, 'a', 1, 0}), Bytes.allocate(8)))
+            .isInstanceOf(IOException.class);
+    }
+
+    @Test
+    void testLengthOverflow() {
+        // Runs of 0xFF long enough to wrap both lengths around to negative values
+        byte[] literals = new byte[10_000_000];
+        Arrays.fill(literals, (byte) 0xFF);
+        literals[0] = (byte) 0xF0;
+        assertThatThrownBy(() -> decompressor.decompress(Bytes.wrap(literals), Bytes.allocate(16)))
+            .isInstanceOf(IOException.class)
+            .hasMessage("Malformed input: literals run past the end");
+
+        byte[] match = new byte[10_000_000];
+        Arrays.fill(match, (byte) 0xFF);
+        match[0] = 0x1F;
+        match[1] = 'a';
+        match[2] = 1;
+        match[3] = 0;
+        assertThatThrownBy(() -> decompressor.decompress(Bytes.wrap(match), Bytes.allocate(16)))
+            .isInstanceOf(IOException.class)
+            .hasMessage("Malformed input: match runs past the end");
+    }
+
+    @Test
+    void testDictionary() throws Exception {
+        var dictionary = Bytes.wrap("The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.US_ASCII));
+        var decompressor = Decompressor.lz4Block(dictionary);
+
+        // A match entirely in the dictionary, and one that runs from the dictionary into the output
+        var quick = Bytes.wrap(new byte[]{0x0B, 39, 0, 0x10, '!'});
+        assertThat(new String(decompressor.decompress(quick, 16).toArray(), StandardCharsets.US_ASCII))
+            .isEqualTo("quick brown fox!");
+        var dogs = Bytes.wrap(new byte[]{0x05, 3, 0, 0x00});
+        assertThat(new String(decompressor.decompress(dogs, 9).toArray(), StandardCharsets.US_ASCII))
+            .isEqualTo("dogdogdog");
+
+        // Without it, or reaching past it, the match is invalid
+        assertThatThrownBy(() -> Decompressor.lz4Block().decompress(quick, 16))
+            .isInstanceOf(IOException.class)
+            .hasMessage("Match before start");
+        assertThatThrownBy(() -> decompressor.decompress(Bytes.wrap(new byte[]{0x0B, 44, 0, 0x10, '!'}), 16))
+            .isInstanceOf(IOException.class)
+            .hasMessage("Match before start");
+    }
+
+    @Test
+    void testSegments() throws Exception {
+        var ls = LZ4BlockCompressorTest.ls();
+        var compressed = Compressor.lz4Block().compress(ls);
+
+        try (var arena = Arena.ofConfined()) {
+            var src = arena.allocate(compressed.length()).copyFrom(MemorySegment.ofBuffer(compressed.asBuffer()));
+            var dst = arena.allocate(ls.length());
+            Decompressor.lz4Block().decompress(src, dst);
+            assertThat(Bytes.wrap(dst.toArray(ValueLayout.JAVA_BYTE))).isEqualTo(ls);
+        }
+    }
 }
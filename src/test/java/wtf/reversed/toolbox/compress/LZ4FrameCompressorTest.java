@@ -0,0 +1,35 @@
+package wtf.reversed.toolbox.compress;
+
+import org.junit.jupiter.params.*;
+import org.junit.jupiter.params.provider.*;
+import wtf.reversed.toolbox.collect.*;
+
+import java.io.*;
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.*;
+
+class LZ4FrameCompressorTest {
+    @ParameterizedTest
+    @ValueSource(ints = {0, 1})
+    void testRoundTrip(int blockChecksum) throws IOException {
+        var compressor = Compressor.lz4Frame(4, blockChecksum != 0);
+
+        // Spans a few blocks, one of which doesn't compress
+        var random = new Random(42);
+        var ls = LZ4BlockCompressorTest.ls();
+        byte[] data = new byte[10 * 1024 * 1024];
+        for (int i = 0; i < 4 * 1024 * 1024; i += ls.length()) {
+            ls.slice(0, Math.min(ls.length(), 4 * 1024 * 1024 - i)).copyTo(Bytes.Mutable.wrap(data), i);
+        }
+        byte[] noise = new byte[4 * 1024 * 1024];
+        random.nextBytes(noise);
+        System.arraycopy(noise, 0, data, 4 * 1024 * 1024, noise.length);
+
+        for (var input : List.of(Bytes.empty(), ls, Bytes.wrap(data))) {
+            var compressed = compressor.compress(input);
+            assertThat(compressed.length()).isLessThanOrEqualTo(compressor.maxCompressedLength(input.length()));
+            assertThat(Decompressor.lz4Frame().decompress(compressed, input.length())).isEqualTo(input);
+        }
+    }
+}
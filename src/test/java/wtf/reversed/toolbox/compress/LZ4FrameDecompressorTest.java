@@ -1,9 +1,13 @@
 package wtf.reversed.toolbox.compress;
 
+import org.junit.jupiter.api.*;
 import org.junit.jupiter.params.*;
 import org.junit.jupiter.params.provider.*;
 import wtf.reversed.toolbox.collect.*;
+import wtf.reversed.toolbox.hash.*;
 
+import java.io.*;
+import java.nio.charset.*;
 import java.security.*;
 import java.util.*;
 
@@ -39,4 +43,120 @@ class LZ4FrameDecompressorTest {
         assertThat(HexFormat.of().formatHex(sha256.digest()))
             .isEqualTo(HASH);
     }
+
+    @Test
+    void testParallel() throws Exception {
+        // Three full blocks and a partial one, with block checksums
+        var random = new Random(42);
+        var ls = LZ4BlockCompressorTest.ls();
+        var data = Bytes.allocate(14 * 1024 * 1024);
+        for (int i = 0; i < data.length(); i += ls.length()) {
+            ls.slice(0, Math.min(ls.length(), data.length() - i)).copyTo(data, i);
+            data.set(i, (byte) random.nextInt());
+        }
+
+        var compressed = Compressor.lz4Frame(0, true).compress(data).toArray();
+        assertThat(Decompressor.lz4Frame(true).decompress(Bytes.wrap(compressed), data.length()))
+            .isEqualTo(data);
+
+        // A broken block is still reported as such
+        compressed[compressed.length / 2] ^= 1;
+        assertThatThrownBy(() -> Decompressor.lz4Frame(true).decompress(Bytes.wrap(compressed), data.length()))
+            .isInstanceOf(IOException.class)
+            .hasMessage("Invalid block checksum");
+    }
+
+    @Test
+    void testParallelShortBlocks() throws Exception {
+        // Independent 64 KiB blocks, but the first ones are stored short, so they can't be placed up front
+        var frame = Bytes.allocate(7 + 3 * 14 + 4);
+        frame.setInt(0, 0x184D2204);
+        frame.set(4, (byte) 0x60);
+        frame.set(5, (byte) 0x40);
+        frame.set(6, (byte) (HashFunction.xxHash32(0).hash(frame.slice(4, 2)).asInt() >> 8));
+        for (int i = 0; i < 3; i++) {
+            frame.setInt(7 + i * 14, 10 | 0x8000_0000);
+            frame.slice(7 + i * 14 + 4, 10).fill((byte) ('a' + i));
+        }
+
+        assertThat(new String(Decompressor.lz4Frame(true).decompress(frame, 30).toArray(), StandardCharsets.US_ASCII))
+            .isEqualTo("aaaaaaaaaabbbbbbbbbbcccccccccc");
+    }
+
+    @Test
+    void testStream() throws Exception {
+        // Linked 64 KiB blocks, so matches reach back into the history of the previous block
+        byte[] compressed;
+        try (var input = getClass().getResourceAsStream("ls.lz4")) {
+            compressed = input.readAllBytes();
+        }
+
+        var output = new ByteArrayOutputStream();
+        try (var stream = decompressor.decompress(new ByteArrayInputStream(compressed), -1)) {
+            byte[] chunk = new byte[1000];
+            for (int read; (read = stream.read(chunk, 0, chunk.length)) >= 0; ) {
+                output.write(chunk, 0, read);
+            }
+            assertThat(stream.read()).isEqualTo(-1);
+        }
+        assertThat(output.size()).isEqualTo(LENGTH);
+        assertThat(HexFormat.of().formatHex(sha256.digest(output.toByteArray())))
+            .isEqualTo(HASH);
+
+        // A broken content checksum is only noticed at the end
+        compressed[compressed.length - 1] ^= 1;
+        try (var stream = decompressor.decompress(new ByteArrayInputStream(compressed), -1)) {
+            assertThat(stream.readNBytes(LENGTH).length).isEqualTo(LENGTH);
+            assertThatThrownBy(stream::read)
+                .isInstanceOf(IOException.class)
+                .hasMessage("Invalid content checksum");
+        }
+
+        // And so is a missing end mark
+        var truncated = new ByteArrayInputStream(compressed, 0, compressed.length - 8);
+        try (var stream = decompressor.decompress(truncated, -1)) {
+            assertThatThrownBy(stream::readAllBytes)
+                .isInstanceOf(EOFException.class);
+        }
+    }
+
+    @Test
+    void testStreamIndependentBlocks() throws Exception {
+        var ls = LZ4BlockCompressorTest.ls();
+        var data = Bytes.allocate(9 * 1024 * 1024);
+        for (int i = 0; i < data.length(); i += ls.length()) {
+            ls.slice(0, Math.min(ls.length(), data.length() - i)).copyTo(data, i);
+        }
+
+        var compressed = Compressor.lz4Frame().compress(data);
+        try (var stream = decompressor.decompress(compressed.asInputStream(), data.length())) {
+            assertThat(Bytes.wrap(stream.readAllBytes())).isEqualTo(data);
+        }
+    }
+
+    @Test
+    void testDictionary() throws Exception {
+        // One independent block with a match in the dictionary with ID 7
+        var frame = Bytes.allocate(11 + 4 + 5 + 4);
+        frame.setInt(0, 0x184D2204);
+        frame.set(4, (byte) 0x61);
+        frame.set(5, (byte) 0x40);
+        frame.setInt(6, 7);
+        frame.set(10, (byte) (HashFunction.xxHash32(0).hash(frame.slice(4, 6)).asInt() >> 8));
+        frame.setInt(11, 5);
+        Bytes.wrap(new byte[]{0x0B, 39, 0, 0x10, '!'}).copyTo(frame, 15);
+
+        var dictionary = Bytes.wrap("The quick brown fox jumps over the lazy dog".getBytes(StandardCharsets.US_ASCII));
+        var decompressor = Decompressor.lz4Frame(false, Map.of(7, dictionary));
+        assertThat(new String(decompressor.decompress(frame, 16).toArray(), StandardCharsets.US_ASCII))
+            .isEqualTo("quick brown fox!");
+        try (var stream = decompressor.decompress(frame.asInputStream(), -1)) {
+            assertThat(new String(stream.readAllBytes(), StandardCharsets.US_ASCII))
+                .isEqualTo("quick brown fox!");
+        }
+
+        assertThatThrownBy(() -> Decompressor.lz4Frame(false, Map.of(8, dictionary)).decompress(frame, 16))
+            .isInstanceOf(IOException.class)
+            .hasMessage("Unknown dictionary ID: 7");
+    }
 }
@@ -25,4 +25,22 @@ class XXHash32Test {
         int actual = new XXHash32(123).hash(Bytes.wrap(buffer, 4, 43 - 2 * 4)).asInt();
         assertThat(actual).isEqualTo(0xE6C0EA2E);
     }
+
+    @Test
+    void testStreaming() {
+        var buffer = XXHashGenerator.generate(1000);
+        int expected = new XXHash32(42).hash(buffer).asInt();
+
+        // Uneven pieces, some smaller than a stripe
+        var hash = StreamingXXHash32.create(42);
+        int[] sizes = {0, 3, 13, 1, 16, 47, 100, 820};
+        for (int i = 0, offset = 0; i < sizes.length; offset += sizes[i++]) {
+            hash.update(buffer.slice(offset, sizes[i]));
+        }
+        assertThat(hash.hash().asInt()).isEqualTo(expected);
+
+        hash.reset();
+        hash.update(buffer.slice(0, 10));
+        assertThat(hash.hash().asInt()).isEqualTo(new XXHash32(42).hash(buffer.slice(0, 10)).asInt());
+    }
 }
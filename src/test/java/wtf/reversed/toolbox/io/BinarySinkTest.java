@@ -0,0 +1,87 @@
+package wtf.reversed.toolbox.io;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+import wtf.reversed.toolbox.collect.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BinarySinkTest {
+    private static final int[] VALUES = new Random(42).ints(0x1001).toArray();
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void testBytesSink() throws IOException {
+        BytesBinarySink sink = BinarySink.allocate(4);
+        write(sink);
+        verify(sink.toBytes());
+    }
+
+    @Test
+    void testFileSink() throws IOException {
+        Path path = directory.resolve("sink.bin");
+        try (BinarySink sink = BinarySink.open(path)) {
+            write(sink);
+        }
+        verify(Bytes.wrap(Files.readAllBytes(path)));
+    }
+
+    @Test
+    void testMappedSink() throws IOException {
+        long size;
+        try (BytesBinarySink sink = BinarySink.allocate()) {
+            write(sink);
+            size = sink.size();
+        }
+
+        Path path = directory.resolve("sink.bin");
+        try (BinarySink sink = BinarySink.map(path, size)) {
+            write(sink);
+        }
+        verify(Bytes.wrap(Files.readAllBytes(path)));
+    }
+
+    private static void write(BinarySink sink) throws IOException {
+        sink.writeInt(0); // Patched below
+        sink.writeByte((byte) 1);
+        sink.writeShort((short) 2);
+        sink.writeLong(3);
+        sink.writeHalf(1.5f);
+        sink.writeBool(true, BoolFormat.INT);
+        sink.writeString("abc", StringFormat.BYTE_LENGTH);
+        sink.writeString("def", StringFormat.NULL_TERM, StandardCharsets.UTF_16LE);
+        sink.order(ByteOrder.BIG_ENDIAN);
+        sink.writeInts(Ints.wrap(VALUES));
+        sink.writeFloat(2.5f);
+
+        long end = sink.position();
+        sink.position(0).order(ByteOrder.LITTLE_ENDIAN);
+        sink.writeInt(0x12345678);
+        sink.position(end);
+    }
+
+    private static void verify(Bytes bytes) throws IOException {
+        try (BinarySource source = BinarySource.wrap(bytes)) {
+            assertEquals(0x12345678, source.readInt());
+            assertEquals(1, source.readByte());
+            assertEquals(2, source.readShort());
+            assertEquals(3, source.readLong());
+            assertEquals(1.5f, source.readHalf());
+            assertTrue(source.readBool(BoolFormat.INT));
+            assertEquals("abc", source.readString(StringFormat.BYTE_LENGTH));
+            assertEquals("def", source.readString(StringFormat.NULL_TERM, StandardCharsets.UTF_16LE));
+            source.order(ByteOrder.BIG_ENDIAN);
+            assertArrayEquals(VALUES, source.readInts(VALUES.length).toArray());
+            assertEquals(2.5f, source.readFloat());
+            source.expectEnd();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package wtf.reversed.toolbox.io;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.*;
+import org.junit.jupiter.params.provider.*;
+import wtf.reversed.toolbox.collect.*;
+
+import java.io.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BitReaderTest {
+    @ParameterizedTest
+    @ValueSource(ints = {1, 3, 7, 8, 13, 16, 21, 31, 32})
+    void testReadBits(int count) throws IOException {
+        int[] values = new Random(count).ints(1001).map(i -> (int) (i & mask(count))).toArray();
+        var bytes = pack(values, count);
+
+        var reader = BitReader.of(bytes);
+        for (int value : values) {
+            assertEquals(value, reader.readBits(count));
+        }
+        assertEquals((long) values.length * count, reader.position());
+
+        var target = Ints.allocate(values.length);
+        BitReader.of(bytes).readBits(target, count);
+        assertArrayEquals(values, target.toArray());
+    }
+
+    @Test
+    void testReadSigned() throws IOException {
+        var reader = BitReader.of(Bytes.wrap(new byte[]{(byte) 0b1101_0111, (byte) 0xFF, 0x7F}));
+        assertEquals(-1, reader.readSigned(3));
+        assertEquals(2, reader.readSigned(3));
+        assertTrue(reader.readBit());
+        assertTrue(reader.readBit());
+        assertEquals(-1, reader.readSigned(8));
+        assertEquals(0x7F, reader.readSigned(8));
+    }
+
+    @Test
+    void testSkipAndAlign() throws IOException {
+        var reader = BitReader.of(Bytes.wrap(new byte[]{0x01, 0x23, 0x45, 0x67, (byte) 0x89, (byte) 0xAB, (byte) 0xCD, (byte) 0xEF, 0x10}));
+        reader.readBits(3);
+        reader.align();
+        assertEquals(8, reader.position());
+        assertEquals(0x23, reader.readBits(8));
+        reader.skip(36);
+        assertEquals(0xC, reader.readBits(4));
+        assertEquals(0xEF, reader.readBits(8));
+        assertEquals(0x10, reader.readBits(8));
+        assertEquals(0, reader.remaining());
+    }
+
+    @Test
+    void testEndOfStream() throws IOException {
+        var reader = BitReader.of(Bytes.wrap(new byte[]{1, 2, 0x43}));
+        reader.readBits(20);
+        assertThrows(EOFException.class, () -> reader.readBits(5));
+        assertEquals(4, reader.readBits(4));
+        assertThrows(EOFException.class, () -> BitReader.of(Bytes.wrap(new byte[3])).readBits(Ints.allocate(4), 7));
+        assertThrows(IllegalArgumentException.class, () -> reader.readBits(33));
+    }
+
+    private static Bytes pack(int[] values, int count) {
+        byte[] result = new byte[(values.length * count + 7) / 8];
+        long bit = 0;
+        for (int value : values) {
+            for (int i = 0; i < count; i++, bit++) {
+                if ((value >>> i & 1) != 0) {
+                    result[(int) (bit >>> 3)] |= (byte) (1 << (bit & 7));
+                }
+            }
+        }
+        return Bytes.wrap(result);
+    }
+
+    private static long mask(int count) {
+        return (1L << count) - 1;
+    }
+}
@@ -5,6 +5,7 @@ import wtf.reversed.toolbox.collect.*;
 
 import java.io.*;
 import java.nio.*;
+import java.nio.charset.*;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -61,4 +62,122 @@ class BytesBinarySourceTest {
             assertEquals(0x10203040, source.readInt());
         }
     }
+
+    @Test
+    void testReadSlice() throws IOException {
+        Bytes.Mutable buffer = Bytes.allocate(8)
+            .setInt(0, 0x10203040)
+            .setInt(4, 0x50607080);
+
+        try (BinarySource source = BinarySource.wrap(buffer)) {
+            source.skip(2);
+            Bytes slice = source.readSlice(4);
+            assertEquals(6, source.position());
+            assertEquals(buffer.slice(2, 4), slice);
+
+            // The slice is a view, not a copy
+            buffer.set(2, (byte) 0x7F);
+            assertEquals((byte) 0x7F, slice.get(0));
+        }
+    }
+
+    @Test
+    void testBulkReads() throws IOException {
+        Bytes.Mutable buffer = Bytes.allocate(16)
+            .setLong(0, 0x0102030405060708L)
+            .setFloat(8, 1.5f)
+            .setFloat(12, -2.0f);
+
+        try (BinarySource source = BinarySource.wrap(buffer)) {
+            assertArrayEquals(new float[]{1.5f, -2.0f}, source.position(8).readFloats(2).toArray());
+            assertArrayEquals(new int[]{0x05060708, 0x01020304}, source.position(0).readInts(2).toArray());
+            assertArrayEquals(new long[]{0x0102030405060708L}, source.position(0).readLongs(1).toArray());
+
+            source.order(ByteOrder.BIG_ENDIAN);
+            assertArrayEquals(new int[]{0x08070605, 0x04030201}, source.position(0).readInts(2).toArray());
+            assertArrayEquals(new short[]{0x0807, 0x0605}, source.position(0).readShorts(2).toArray());
+        }
+    }
+
+    @Test
+    void testNullTerminatedStrings() throws IOException {
+        // The UTF-16 and UTF-32 strings contain zero bytes that are not aligned to a code unit
+        String[] strings = {"", "a", "abcdefghijklmnopqrstuvwxyz", "A\u0100\u0100B", "\u0100A\u0100"};
+        Charset[] charsets = {StandardCharsets.UTF_8, StandardCharsets.UTF_16LE, Charset.forName("UTF-32LE")};
+
+        for (Charset charset : charsets) {
+            int unit = "a".getBytes(charset).length;
+            var stream = new ByteArrayOutputStream();
+            for (String string : strings) {
+                stream.writeBytes(string.getBytes(charset));
+                stream.writeBytes(new byte[unit]);
+            }
+
+            try (BinarySource source = BinarySource.wrap(Bytes.wrap(stream.toByteArray()))) {
+                for (String string : strings) {
+                    assertEquals(string, source.readString(StringFormat.NULL_TERM, charset));
+                }
+                source.expectEnd();
+            }
+        }
+    }
+
+    @Test
+    void testUnterminatedString() throws IOException {
+        try (BinarySource source = BinarySource.wrap(Bytes.wrap("abc".getBytes(StandardCharsets.UTF_8)))) {
+            assertThrows(EOFException.class, () -> source.readString(StringFormat.NULL_TERM));
+        }
+    }
+
+    @Test
+    void testSlice() throws IOException {
+        Bytes.Mutable buffer = Bytes.allocate(16)
+            .setInt(4, 0x10203040)
+            .setInt(8, 0x50607080);
+
+        try (BinarySource source = BinarySource.wrap(buffer).order(ByteOrder.BIG_ENDIAN)) {
+            BinarySource slice = source.slice(4, 8);
+            assertEquals(ByteOrder.BIG_ENDIAN, slice.order());
+            assertEquals(8, slice.size());
+            assertEquals(0x40302010, slice.readInt());
+            assertEquals(0x50607080, slice.order(ByteOrder.LITTLE_ENDIAN).readInt());
+            slice.expectEnd();
+            assertEquals(ByteOrder.BIG_ENDIAN, source.order());
+        }
+    }
+
+    @Test
+    void testVarInts() throws IOException {
+        long[] values = {0, 1, 127, 128, 300, 0x3FFF, 0x4000, Integer.MAX_VALUE, 0xFFFFFFFFL, 1L << 48, Long.MAX_VALUE, -1};
+        var stream = new ByteArrayOutputStream();
+        for (long value : values) {
+            writeVarLong(stream, value);
+        }
+        writeVarLong(stream, 2 * 1234567L + 1);
+        stream.write(0); // Keep the last value away from the end
+
+        try (BinarySource source = BinarySource.wrap(Bytes.wrap(stream.toByteArray()))) {
+            for (long value : values) {
+                assertEquals(value, source.readVarLong());
+            }
+            assertEquals(-1234568, source.readZigZag());
+
+            source.position(0);
+            assertArrayEquals(new int[]{0, 1, 127, 128, 300, 0x3FFF, 0x4000, Integer.MAX_VALUE, -1}, source.readVarInts(9).toArray());
+            assertThrows(IOException.class, source::readVarInt);
+        }
+
+        byte[] tooLong = {-1, -1, -1, -1, -1, -1, -1, -1, -1, 0x02};
+        try (BinarySource source = BinarySource.wrap(Bytes.wrap(tooLong))) {
+            assertThrows(IOException.class, source::readVarLong);
+        }
+    }
+
+    static void writeVarLong(ByteArrayOutputStream stream, long value) {
+        while ((value & ~0x7FL) != 0) {
+            stream.write((int) (value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        stream.write((int) value);
+    }
 }
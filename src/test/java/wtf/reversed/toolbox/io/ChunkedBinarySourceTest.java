@@ -0,0 +1,105 @@
+package wtf.reversed.toolbox.io;
+
+import org.junit.jupiter.api.*;
+import wtf.reversed.toolbox.collect.*;
+import wtf.reversed.toolbox.compress.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.stream.*;
+import java.util.zip.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChunkedBinarySourceTest {
+    private static final int CHUNK_SIZE = 0x1000;
+
+    @Test
+    void testRandomAccess() throws IOException {
+        byte[] data = new byte[0x10800];
+        var random = new Random(42);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) random.nextInt(16);
+        }
+        // One incompressible chunk, which is stored as is
+        byte[] noise = new byte[CHUNK_SIZE];
+        random.nextBytes(noise);
+        System.arraycopy(noise, 0, data, 3 * CHUNK_SIZE, CHUNK_SIZE);
+
+        var stream = new ByteArrayOutputStream();
+        var offsets = new ArrayList<Long>();
+        for (int offset = 0; offset < data.length; offset += CHUNK_SIZE) {
+            offsets.add((long) stream.size());
+            int length = Math.min(CHUNK_SIZE, data.length - offset);
+            if (offset == 3 * CHUNK_SIZE) {
+                stream.write(data, offset, length);
+            } else {
+                stream.writeBytes(deflate(data, offset, length));
+            }
+        }
+        offsets.add((long) stream.size());
+
+        var compressed = BinarySource.wrap(Bytes.wrap(stream.toByteArray()));
+        var table = Longs.wrap(offsets.stream().mapToLong(Long::longValue).toArray());
+        try (BinarySource source = BinarySource.chunked(compressed, Decompressor.deflate(false), table, CHUNK_SIZE, data.length, 2 * CHUNK_SIZE)) {
+            assertEquals(data.length, source.size());
+
+            // Reads across chunk boundaries, and far enough apart to evict earlier chunks
+            for (int position : new int[]{0x10700, 0xFFC, 0x2F00, 0x8000, 0, 0x3FFE}) {
+                source.position(position);
+                int length = Math.min(0x400, data.length - position);
+                assertArrayEquals(Arrays.copyOfRange(data, position, position + length), source.readBytes(length).toArray());
+            }
+
+            // A read larger than the buffer stops at the end, instead of running off the last chunk
+            source.position(data.length - 0x100);
+            assertThrows(EOFException.class, () -> source.readBytes(Bytes.allocate(0x4000)));
+
+            IntStream.range(0, 16).parallel().forEach(i -> {
+                var target = Bytes.allocate(0x800);
+                try {
+                    source.readAt(i * 0x1000L + 0x100, target);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                assertArrayEquals(Arrays.copyOfRange(data, i * 0x1000 + 0x100, i * 0x1000 + 0x900), target.toArray());
+            });
+        }
+    }
+
+    @Test
+    void testShortChunk() throws IOException {
+        byte[] data = new byte[0x2000];
+        new Random(42).nextBytes(data);
+
+        // The last chunk only decodes to half its nominal size
+        var stream = new ByteArrayOutputStream();
+        stream.writeBytes(deflate(data, 0, CHUNK_SIZE));
+        long second = stream.size();
+        stream.writeBytes(deflate(data, CHUNK_SIZE, CHUNK_SIZE / 2));
+        var table = Longs.wrap(new long[]{0, second, stream.size()});
+
+        var compressed = BinarySource.wrap(Bytes.wrap(stream.toByteArray()));
+        try (BinarySource source = BinarySource.chunked(compressed, Decompressor.deflate(false), table, CHUNK_SIZE, data.length, 0)) {
+            var target = Bytes.allocate(0x100);
+            source.readAt(0xF00, target);
+            assertArrayEquals(Arrays.copyOfRange(data, 0xF00, 0x1000), target.toArray());
+            assertThrows(EOFException.class, () -> source.readAt(0x1000, target));
+        }
+    }
+
+    @Test
+    void testInvalidTable() throws IOException {
+        var compressed = BinarySource.wrap(Bytes.allocate(16));
+        assertThrows(IllegalArgumentException.class, () -> BinarySource.chunked(compressed, Decompressor.none(), Longs.wrap(new long[]{0, 8}), 8, 16));
+        assertThrows(IndexOutOfBoundsException.class, () -> BinarySource.chunked(compressed, Decompressor.none(), Longs.wrap(new long[]{0, 8, 24}), 8, 16));
+    }
+
+    private static byte[] deflate(byte[] data, int offset, int length) throws IOException {
+        var stream = new ByteArrayOutputStream();
+        try (var deflater = new DeflaterOutputStream(stream)) {
+            deflater.write(data, offset, length);
+        }
+        return stream.toByteArray();
+    }
+}
@@ -0,0 +1,64 @@
+package wtf.reversed.toolbox.io;
+
+import org.junit.jupiter.api.*;
+import wtf.reversed.toolbox.collect.*;
+import wtf.reversed.toolbox.compress.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DecompressingBinarySourceTest {
+    @Test
+    void testDeflate() throws IOException {
+        byte[] data = new byte[0x40000];
+        var random = new Random(42);
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) random.nextInt(16);
+        }
+
+        var stream = new ByteArrayOutputStream();
+        try (var deflater = new DeflaterOutputStream(stream)) {
+            deflater.write(data);
+        }
+
+        var compressed = BinarySource.wrap(Bytes.wrap(stream.toByteArray()));
+        try (BinarySource source = BinarySource.decompressing(compressed, Decompressor.deflate(false), data.length)) {
+            assertEquals(data.length, source.size());
+            assertEquals(Bytes.wrap(data).getInt(0), source.readInt());
+
+            // Forward seeks skip ahead, backward seeks start over
+            source.position(0x30000);
+            assertArrayEquals(Arrays.copyOfRange(data, 0x30000, 0x31000), source.readBytes(0x1000).toArray());
+            source.position(0x100);
+            assertArrayEquals(Arrays.copyOfRange(data, 0x100, 0x20100), source.readBytes(0x20000).toArray());
+
+            var slice = source.slice(0x3FFF0, 0x10);
+            assertArrayEquals(Arrays.copyOfRange(data, 0x3FFF0, 0x40000), slice.readBytes(0x10).toArray());
+        }
+    }
+
+    @Test
+    void testNone() throws IOException {
+        byte[] data = new byte[0x4000];
+        new Random(42).nextBytes(data);
+
+        var compressed = BinarySource.wrap(Bytes.wrap(data));
+        try (BinarySource source = BinarySource.decompressing(compressed, Decompressor.none(), data.length)) {
+            source.position(0x3000);
+            assertArrayEquals(Arrays.copyOfRange(data, 0x3000, 0x4000), source.readBytes(0x1000).toArray());
+            source.position(0);
+            assertArrayEquals(Arrays.copyOfRange(data, 0, 0x1000), source.readBytes(0x1000).toArray());
+        }
+    }
+
+    @Test
+    void testTruncated() throws IOException {
+        var compressed = BinarySource.wrap(Bytes.wrap(new byte[16]));
+        try (BinarySource source = BinarySource.decompressing(compressed, Decompressor.none(), 32)) {
+            assertThrows(EOFException.class, () -> source.readBytes(32));
+        }
+    }
+}
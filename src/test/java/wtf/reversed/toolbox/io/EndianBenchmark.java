@@ -0,0 +1,90 @@
+package wtf.reversed.toolbox.io;
+
+import wtf.reversed.toolbox.collect.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.file.*;
+import java.util.*;
+
+/**
+ * Compares the throughput of little- and big-endian primitive reads on every kind of source. Not a unit test, run it
+ * by hand. Every combination runs in its own JVM, so the call sites don't get polluted by the other sources, and the
+ * best of several rounds is reported.
+ */
+final class EndianBenchmark {
+    private static final int SIZE = 64 * 1024 * 1024;
+    private static final int ROUNDS = 10;
+
+    static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length == 0) {
+            String java = ProcessHandle.current().info().command().orElseThrow();
+            for (String order : List.of("LITTLE_ENDIAN", "BIG_ENDIAN")) {
+                for (String kind : List.of("bytes", "file", "mapped")) {
+                    new ProcessBuilder(java, "-cp", System.getProperty("java.class.path"), EndianBenchmark.class.getName(), kind, order)
+                        .inheritIO()
+                        .start()
+                        .waitFor();
+                }
+            }
+            return;
+        }
+
+        String kind = args[0];
+        ByteOrder order = args[1].equals("BIG_ENDIAN") ? ByteOrder.BIG_ENDIAN : ByteOrder.LITTLE_ENDIAN;
+
+        byte[] data = new byte[SIZE];
+        new Random(42).nextBytes(data);
+
+        Path path = Files.createTempFile("endian", ".bin");
+        try {
+            Files.write(path, data);
+            try (BinarySource source = switch (kind) {
+                case "bytes" -> BinarySource.wrap(Bytes.wrap(data));
+                case "file" -> BinarySource.open(path);
+                case "mapped" -> BinarySource.map(path);
+                default -> throw new IllegalArgumentException("Unknown source: " + kind);
+            }) {
+                run(kind, source.order(order));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static void run(String name, BinarySource source) throws IOException {
+        long bestShort = Long.MAX_VALUE;
+        long bestInt = Long.MAX_VALUE;
+        long bestLong = Long.MAX_VALUE;
+        long blackhole = 0;
+        for (int round = 0; round < ROUNDS; round++) {
+            source.position(0);
+            long start = System.nanoTime();
+            for (int i = 0; i < SIZE / Short.BYTES; i++) {
+                blackhole += source.readShort();
+            }
+            bestShort = Math.min(bestShort, System.nanoTime() - start);
+
+            source.position(0);
+            start = System.nanoTime();
+            for (int i = 0; i < SIZE / Integer.BYTES; i++) {
+                blackhole += source.readInt();
+            }
+            bestInt = Math.min(bestInt, System.nanoTime() - start);
+
+            source.position(0);
+            start = System.nanoTime();
+            for (int i = 0; i < SIZE / Long.BYTES; i++) {
+                blackhole += source.readLong();
+            }
+            bestLong = Math.min(bestLong, System.nanoTime() - start);
+        }
+
+        System.out.printf("%-6s %-13s readShort %5.2f ns/op  readInt %5.2f ns/op  readLong %5.2f ns/op  (%d)%n",
+            name, source.order(),
+            (double) bestShort / (SIZE / Short.BYTES),
+            (double) bestInt / (SIZE / Integer.BYTES),
+            (double) bestLong / (SIZE / Long.BYTES),
+            blackhole & 1);
+    }
+}
@@ -0,0 +1,273 @@
+package wtf.reversed.toolbox.io;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+import wtf.reversed.toolbox.collect.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.file.*;
+import java.time.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileBinarySourceTest {
+    @TempDir
+    Path directory;
+
+    private Path path;
+
+    @Test
+    void testReadAt() throws IOException {
+        byte[] data = writeRandom(0x40000);
+        try (BinarySource source = BinarySource.open(path)) {
+            source.position(1234);
+
+            // Read chunks from all over the file in parallel, none of which should move the position
+            IntStream.range(0, 64).parallel().forEach(i -> {
+                var target = Bytes.allocate(0x1000);
+                try {
+                    source.readAt(i * 0x1000L, target);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                assertArrayEquals(Arrays.copyOfRange(data, i * 0x1000, (i + 1) * 0x1000), target.toArray());
+            });
+            assertEquals(1234, source.position());
+
+            assertThrows(IndexOutOfBoundsException.class, () -> source.readAt(data.length - 1, Bytes.allocate(2)));
+        }
+    }
+
+    @Test
+    void testCursor() throws IOException {
+        byte[] data = writeRandom(0x4000);
+        try (BinarySource source = BinarySource.open(path)) {
+            try (BinarySource cursor = source.cursor()) {
+                cursor.position(100);
+                assertArrayEquals(Arrays.copyOfRange(data, 100, 10000), cursor.readBytes(9900).toArray());
+                assertEquals(0, source.position());
+            }
+
+            // Closing the cursor leaves the parent usable
+            assertArrayEquals(Arrays.copyOfRange(data, 0, 16), source.readBytes(16).toArray());
+        }
+    }
+
+    @Test
+    void testAdaptiveBuffer() throws IOException {
+        byte[] data = writeRandom(0x40000);
+        try (BinarySource source = BinarySource.open(path, BufferPolicy.adaptive(0x400, 0x10000))) {
+            assertEquals(0x400, source.readStats().orElseThrow().bufferSize());
+
+            // A sequential scan grows the buffer up to the maximum
+            for (int i = 0; i < data.length; i++) {
+                assertEquals(data[i], source.readByte());
+            }
+            ReadStats stats = source.readStats().orElseThrow();
+            assertEquals(0x10000, stats.bufferSize());
+            assertEquals(6, stats.grows());
+
+            // Random seeks shrink it back down
+            for (int i = 0; i < 10; i++) {
+                source.position(i * 0x3000L);
+                assertEquals(data[i * 0x3000], source.readByte());
+            }
+            stats = source.readStats().orElseThrow();
+            assertEquals(0x400, stats.bufferSize());
+            assertEquals(6, stats.shrinks());
+
+            // And a scan grows it again, over the storage it already had
+            source.position(0);
+            for (int i = 0; i < data.length; i += 8) {
+                assertEquals(Bytes.wrap(data).getLong(i), source.readLong());
+            }
+            assertEquals(0x10000, source.readStats().orElseThrow().bufferSize());
+        }
+    }
+
+    @Test
+    void testBufferTooSmall() {
+        // A buffer must be able to hold a long
+        assertThrows(IllegalArgumentException.class, () -> BufferPolicy.fixed(4));
+        assertThrows(IllegalArgumentException.class, () -> BufferPolicy.adaptive(2, 0x1000));
+        assertEquals(8, BufferPolicy.fixed(8).minimumSize());
+    }
+
+    @Test
+    void testReadAhead() throws IOException {
+        byte[] data = writeRandom(0x40000);
+        try (BinarySource source = BinarySource.open(path, BufferPolicy.fixed(0x1000).withReadAhead(true))) {
+            assertArrayEquals(Arrays.copyOfRange(data, 0, 0x10000), source.readBytes(0x10000).toArray());
+            for (int i = 0x10000; i < 0x20000; i++) {
+                assertEquals(data[i], source.readByte());
+            }
+
+            // All but the first refill of the scan come from a prefetch
+            ReadStats stats = source.readStats().orElseThrow();
+            assertEquals(16, stats.refills());
+            assertEquals(15, stats.readAheads());
+
+            // Jumping elsewhere discards whatever was prefetched
+            source.position(0x30001);
+            assertArrayEquals(Arrays.copyOfRange(data, 0x30001, 0x30101), source.readBytes(0x100).toArray());
+            source.position(0x100);
+            for (int i = 0x100; i < 0x3000; i += 4) {
+                assertEquals(Bytes.wrap(data).getInt(i), source.readInt());
+            }
+        }
+    }
+
+    @Test
+    void testReadAheadDroppedOnSeek() throws IOException {
+        byte[] data = new byte[0x4000];
+        new Random(42).nextBytes(data);
+
+        // The prefetch of the second block never finishes on its own
+        var latch = new CountDownLatch(1);
+        var source = new BufferedBinarySource(data.length, BufferPolicy.fixed(0x1000).withReadAhead(true)) {
+            @Override
+            int readImpl(Bytes.Mutable target, long position) throws IOException {
+                if (position == 0x1000) {
+                    try {
+                        latch.await();
+                    } catch (InterruptedException e) {
+                        throw new InterruptedIOException();
+                    }
+                }
+                Bytes.wrap(data, (int) position, target.length()).copyTo(target, 0);
+                return target.length();
+            }
+
+            @Override
+            void readAtImpl(long position, Bytes.Mutable target) throws IOException {
+                readImpl(target, position);
+            }
+
+            @Override
+            public BinarySource slice(long offset, long length) {
+                throw new UnsupportedOperationException();
+            }
+        };
+
+        try (source) {
+            assertEquals(data[0], source.readByte());
+            assertTimeoutPreemptively(Duration.ofSeconds(10), () -> {
+                source.position(0x3000);
+                assertEquals(Bytes.wrap(data).getInt(0x3000), source.readInt());
+                source.position(0x10);
+                assertEquals(Bytes.wrap(data).getLong(0x10), source.readLong());
+            });
+            assertEquals(0, source.readStats().orElseThrow().readAheads());
+        } finally {
+            latch.countDown();
+        }
+    }
+
+    @Test
+    void testSlice() throws IOException {
+        byte[] data = writeRandom(0x4000);
+        try (BinarySource source = BinarySource.open(path)) {
+            BinarySource slice = source.slice(0x1000, 0x2000);
+            assertEquals(0x2000, slice.size());
+            assertArrayEquals(Arrays.copyOfRange(data, 0x1000, 0x1100), slice.readBytes(0x100).toArray());
+
+            // Slices of slices are relative to their parent, and can't read past their end
+            BinarySource nested = slice.slice(0x1F00, 0x100);
+            assertArrayEquals(Arrays.copyOfRange(data, 0x2F00, 0x3000), nested.readBytes(0x100).toArray());
+            assertThrows(IOException.class, nested::readByte);
+            assertThrows(IndexOutOfBoundsException.class, () -> slice.slice(0x1F00, 0x101));
+
+            // A read larger than the buffer doesn't go past the end either
+            BinarySource small = source.slice(0, 0x10);
+            assertThrows(EOFException.class, () -> small.readBytes(Bytes.allocate(0x2000)));
+            assertTrue(small.position() <= small.size());
+            assertEquals(0, source.position());
+        }
+    }
+
+    @Test
+    void testReadObjectsParallel() throws IOException {
+        // Records of an int and a short, padded to 8 bytes
+        var buffer = ByteBuffer.allocate(4 + 10000 * 8).order(ByteOrder.BIG_ENDIAN).putInt(10000);
+        for (int i = 0; i < 10000; i++) {
+            buffer.putInt(i * 3).putShort((short) i).putShort((short) -1);
+        }
+
+        Files.write(directory.resolve("records.bin"), buffer.array());
+        try (BinarySource source = BinarySource.open(directory.resolve("records.bin")).order(ByteOrder.BIG_ENDIAN)) {
+            int count = source.readInt();
+            List<int[]> records = source.readObjects(count, 8, s -> new int[]{s.readInt(), s.readShort()});
+            assertEquals(buffer.capacity(), source.position());
+            assertEquals(10000, records.size());
+            for (int i = 0; i < records.size(); i++) {
+                assertArrayEquals(new int[]{i * 3, i}, records.get(i));
+            }
+
+            source.position(4);
+            assertThrows(IOException.class, () -> source.readObjects(10001, 8, BinarySource::readInt));
+
+            // A record can't spill into the next one
+            source.position(4);
+            assertThrows(IOException.class, () -> source.readObjects(100, 8, s -> s.readBytes(12)));
+            assertThrows(UnsupportedOperationException.class, () -> records.set(0, null));
+        }
+    }
+
+    @Test
+    void testReadStats() throws IOException {
+        byte[] data = writeRandom(0x10000);
+        try (BinarySource source = BinarySource.open(path, BufferPolicy.fixed(0x1000))) {
+            // Without metrics only the buffer is tracked
+            source.readInt();
+            ReadStats stats = source.readStats().orElseThrow();
+            assertEquals(1, stats.refills());
+            assertEquals(0, stats.reads());
+            assertEquals(0, stats.bytesRead());
+        }
+
+        var policy = BufferPolicy.fixed(0x1000).withMetrics(true);
+        try (BinarySource first = BinarySource.open(path, policy);
+             BinarySource second = BinarySource.open(path, policy);
+             BinarySource source = BinarySource.sequence(List.of(first, second))) {
+            while (first.remaining() > 0) {
+                first.readInt();
+            }
+            ReadStats stats = first.readStats().orElseThrow();
+            assertEquals(data.length, stats.bytesRead());
+            assertEquals(16, stats.reads());
+            assertEquals(16, stats.refills());
+            assertEquals(0, stats.seeks());
+
+            // A direct read bypasses the buffer, a jump elsewhere is a seek
+            second.readBytes(0x8000);
+            second.position(0x100);
+            second.readByte();
+            stats = second.readStats().orElseThrow();
+            assertEquals(0x9000, stats.bytesRead());
+            assertEquals(2, stats.reads());
+            assertEquals(1, stats.seeks());
+
+            // The sequence reads through cursors, so it reports its own reads, not those of its children
+            assertTrue(source.readStats().isEmpty());
+            source.readBytes(0x18000);
+            stats = source.readStats().orElseThrow();
+            assertEquals(0x18000, stats.bytesRead());
+            assertEquals(0x2000, stats.bufferSize());
+            assertEquals(0x100 + 1, second.position());
+        }
+    }
+
+    /**
+     * Writes {@code size} random bytes to {@link #path}, and returns them.
+     */
+    private byte[] writeRandom(int size) throws IOException {
+        byte[] data = new byte[size];
+        new Random(42).nextBytes(data);
+        path = Files.write(directory.resolve("file.bin"), data);
+        return data;
+    }
+}
@@ -0,0 +1,70 @@
+package wtf.reversed.toolbox.io;
+
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.*;
+import wtf.reversed.toolbox.collect.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
+import java.nio.file.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedBinarySourceTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void testReader() throws IOException {
+        Bytes.Mutable bytes = Bytes.allocate(20)
+            .set(0, (byte) 0)
+            .set(1, (byte) 1)
+            .setShort(2, (short) 2)
+            .setInt(4, 3)
+            .setLong(8, 4)
+            .setInt(16, 0x10203040);
+
+        Path path = Files.write(directory.resolve("mapped.bin"), bytes.toArray());
+        try (BinarySource source = BinarySource.map(path)) {
+            assertEquals(20, source.size());
+            assertEquals(0, source.readByte());
+            assertEquals(1, source.readByte());
+            assertEquals(2, source.readShort());
+            assertEquals(3, source.readInt());
+            assertEquals(4, source.readLong());
+            assertEquals(0x10203040, source.readInt());
+            assertEquals(0, source.remaining());
+
+            source.position(16).order(ByteOrder.BIG_ENDIAN);
+            assertEquals(0x40302010, source.readInt());
+
+            source.position(4);
+            assertEquals(bytes.slice(4, 12), source.readBytes(12));
+
+            var target = Bytes.allocate(8);
+            source.readAt(16, target.slice(2, 4));
+            assertEquals(bytes.slice(16, 4), target.slice(2, 4));
+
+            // Reading past the end fails without moving the position
+            source.position(17);
+            assertThrows(EOFException.class, source::readInt);
+            assertThrows(EOFException.class, source::readLong);
+            assertThrows(EOFException.class, () -> source.readBytes(Bytes.allocate(4)));
+            assertEquals(17, source.position());
+            source.position(20);
+            assertThrows(EOFException.class, source::readByte);
+            assertThrows(EOFException.class, source::readShort);
+        }
+    }
+
+    @Test
+    void testNullTerminatedStrings() throws IOException {
+        Path path = Files.write(directory.resolve("mapped.bin"), "first\0second string\0".getBytes(StandardCharsets.UTF_8));
+        try (BinarySource source = BinarySource.map(path)) {
+            assertEquals("first", source.readString(StringFormat.NULL_TERM));
+            assertEquals("second string", source.readString(StringFormat.NULL_TERM));
+            source.expectEnd();
+        }
+    }
+}
@@ -4,6 +4,8 @@ import org.junit.jupiter.api.*;
 import wtf.reversed.toolbox.collect.*;
 
 import java.io.*;
+import java.nio.*;
+import java.nio.charset.*;
 import java.util.*;
 
 import static org.junit.jupiter.api.Assertions.*;
@@ -11,8 +13,6 @@ import static org.junit.jupiter.api.Assertions.*;
 class SequenceBinarySourceTest {
     @Test
     void testSource() throws IOException {
-        // Internally, SequenceBinaryReader uses a 4KB buffer, so allocate enough
-        // data so it won't fully fit
         byte[] data = new byte[0x40000];
         Random random = new Random(42);
         random.nextBytes(data);
@@ -38,4 +38,137 @@ class SequenceBinarySourceTest {
             assertArrayEquals(data, output);
         }
     }
+
+    @Test
+    void testBulkReads() throws IOException {
+        // Odd sized chunks, so elements straddle the children
+        int[] values = new Random(42).ints(0x3001).toArray();
+        ByteBuffer data = ByteBuffer.allocate(values.length * Integer.BYTES).order(ByteOrder.BIG_ENDIAN);
+        data.asIntBuffer().put(values);
+
+        List<BinarySource> sources = List.of(
+            BinarySource.wrap(Bytes.wrap(data.array(), 0, 4097)),
+            BinarySource.wrap(Bytes.wrap(data.array(), 4097, data.capacity() - 4097))
+        );
+
+        try (BinarySource source = BinarySource.sequence(sources).order(ByteOrder.BIG_ENDIAN)) {
+            source.readByte();
+            source.position(0);
+            assertArrayEquals(values, source.readInts(values.length).toArray());
+
+            source.position(2);
+            short[] shorts = source.readShorts(values.length).toArray();
+            for (int i = 0; i < shorts.length; i++) {
+                assertEquals(data.getShort(2 + i * Short.BYTES), shorts[i]);
+            }
+
+            source.position(4);
+            float[] halfs = source.readHalfs(values.length).toArray();
+            for (int i = 0; i < halfs.length; i++) {
+                assertEquals(Float.float16ToFloat(data.getShort(4 + i * Short.BYTES)), halfs[i]);
+            }
+        }
+    }
+
+    @Test
+    void testChildrenUntouched() throws IOException {
+        byte[] data = new byte[64];
+        new Random(42).nextBytes(data);
+
+        BinarySource first = BinarySource.wrap(Bytes.wrap(data, 0, 30)).order(ByteOrder.BIG_ENDIAN);
+        BinarySource second = BinarySource.wrap(Bytes.wrap(data, 30, 34));
+        first.position(4);
+
+        try (BinarySource source = BinarySource.sequence(List.of(first, second))) {
+            assertEquals(Bytes.wrap(data).getInt(0), source.readInt());
+            source.position(28);
+            assertEquals(Bytes.wrap(data).getLong(28), source.readLong());
+
+            // Changing the order of the sequence applies to every child it read from
+            source.order(ByteOrder.BIG_ENDIAN).position(0);
+            assertEquals(Integer.reverseBytes(Bytes.wrap(data).getInt(0)), source.readInt());
+            source.position(40);
+            assertEquals(Long.reverseBytes(Bytes.wrap(data).getLong(40)), source.readLong());
+
+            // The children keep their own order and position
+            assertEquals(ByteOrder.BIG_ENDIAN, first.order());
+            assertEquals(ByteOrder.LITTLE_ENDIAN, second.order());
+            assertEquals(4, first.position());
+            assertEquals(0, second.position());
+        }
+    }
+
+    @Test
+    void testNullTerminatedStrings() throws IOException {
+        // Long enough that some strings span both children
+        var random = new Random(42);
+        var strings = new ArrayList<String>();
+        var stream = new ByteArrayOutputStream();
+        for (int i = 0; i < 100; i++) {
+            var string = "x".repeat(random.nextInt(0x3000)) + i;
+            strings.add(string);
+            stream.writeBytes(string.getBytes(StandardCharsets.UTF_16LE));
+            stream.writeBytes(new byte[2]);
+        }
+        byte[] data = stream.toByteArray();
+
+        List<BinarySource> sources = List.of(
+            BinarySource.wrap(Bytes.wrap(data, 0, 12345)),
+            BinarySource.wrap(Bytes.wrap(data, 12345, data.length - 12345))
+        );
+
+        try (BinarySource source = BinarySource.sequence(sources)) {
+            assertEquals(strings, source.readStrings(strings.size(), StringFormat.NULL_TERM, StandardCharsets.UTF_16LE));
+            source.expectEnd();
+        }
+    }
+
+    @Test
+    void testSeekAcrossEmptySources() throws IOException {
+        byte[] data = new byte[64];
+        new Random(42).nextBytes(data);
+
+        List<BinarySource> sources = List.of(
+            BinarySource.wrap(Bytes.wrap(data, 0, 10)),
+            BinarySource.wrap(Bytes.empty()),
+            BinarySource.wrap(Bytes.wrap(data, 10, 20)),
+            BinarySource.wrap(Bytes.empty()),
+            BinarySource.wrap(Bytes.wrap(data, 30, 34))
+        );
+
+        try (BinarySource source = BinarySource.sequence(sources)) {
+            for (int position : new int[]{63, 30, 10, 9, 0, 29, 64}) {
+                source.position(position);
+                assertEquals(position, source.position());
+                assertArrayEquals(Arrays.copyOfRange(data, position, 64), source.readBytes(64 - position).toArray());
+            }
+
+            source.position(8);
+            assertEquals(Bytes.wrap(data).getLong(8), source.readLong());
+            assertEquals(16, source.position());
+        }
+    }
+
+    @Test
+    void testVarInts() throws IOException {
+        var random = new Random(42);
+        long[] values = random.longs(1000).map(value -> value >>> random.nextInt(64)).toArray();
+        var stream = new ByteArrayOutputStream();
+        for (long value : values) {
+            BytesBinarySourceTest.writeVarLong(stream, value);
+        }
+        byte[] data = stream.toByteArray();
+
+        List<BinarySource> sources = List.of(
+            BinarySource.wrap(Bytes.wrap(data, 0, 1001)),
+            BinarySource.wrap(Bytes.wrap(data, 1001, data.length - 1001))
+        );
+
+        try (BinarySource source = BinarySource.sequence(sources)) {
+            for (long value : values) {
+                assertEquals(value, source.readVarLong());
+            }
+            source.expectEnd();
+        }
+    }
 }
@@ -0,0 +1,50 @@
+package wtf.reversed.toolbox.io;
+
+import org.junit.jupiter.api.*;
+import wtf.reversed.toolbox.collect.*;
+
+import java.io.*;
+import java.nio.charset.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringPoolTest {
+    @Test
+    void testIntern() {
+        StringPool pool = StringPool.create();
+        String first = pool.intern(Bytes.wrap("textures/".getBytes(StandardCharsets.UTF_8)));
+        String second = pool.intern(Bytes.wrap("xtextures/".getBytes(StandardCharsets.UTF_8)).slice(1));
+
+        assertEquals("textures/", first);
+        assertSame(first, second);
+        assertEquals(1, pool.size());
+    }
+
+    @Test
+    void testReadStrings() throws IOException {
+        // Enough distinct strings to make the pool grow, each repeated a few times
+        var strings = new ArrayList<String>();
+        var stream = new ByteArrayOutputStream();
+        for (int i = 0; i < 1000; i++) {
+            var string = "folder" + (i % 100) + "/";
+            strings.add(string);
+            stream.writeBytes(string.getBytes(StandardCharsets.UTF_8));
+            stream.write(0);
+        }
+        byte[] data = stream.toByteArray();
+
+        List<BinarySource> sources = List.of(
+            BinarySource.wrap(Bytes.wrap(data, 0, 1000)),
+            BinarySource.wrap(Bytes.wrap(data, 1000, data.length - 1000))
+        );
+
+        StringPool pool = StringPool.create();
+        try (BinarySource source = BinarySource.sequence(sources)) {
+            List<String> result = source.readStrings(strings.size(), StringFormat.NULL_TERM, pool);
+            assertEquals(strings, result);
+            assertSame(result.get(0), result.get(100));
+            assertEquals(100, pool.size());
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package wtf.reversed.toolbox.processor;
+
+import org.junit.jupiter.api.*;
+import wtf.reversed.toolbox.collect.*;
+import wtf.reversed.toolbox.io.*;
+
+import javax.tools.*;
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.file.*;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StructProcessorTest {
+    private static final String SOURCE = """
+        package test;
+
+        import wtf.reversed.toolbox.io.*;
+        import wtf.reversed.toolbox.math.*;
+
+        @Struct
+        public record Entry(int id, Header header, Vector3 position, short flags) {
+            @Struct
+            public record Header(long hash, float scale) {
+            }
+        }
+        """;
+
+    @Test
+    void testGeneratedMapper() throws Exception {
+        Path directory = Files.createTempDirectory("struct");
+        try {
+            Path source = directory.resolve("test/Entry.java");
+            Files.createDirectories(source.getParent());
+            Files.writeString(source, SOURCE);
+            compile(directory, source);
+
+            String generated = Files.readString(directory.resolve("test/EntryMapper.java"));
+            assertTrue(generated.contains("source.readInt()"));
+            assertTrue(generated.contains("test.Entry_HeaderMapper.INSTANCE.read(source)"));
+            assertTrue(generated.contains("wtf.reversed.toolbox.math.Vector3.read(source)"));
+            assertTrue(generated.contains("source.readShort()"));
+            assertFalse(generated.contains("readBuffer"));
+
+            ByteBuffer data = ByteBuffer.allocate(30).order(ByteOrder.BIG_ENDIAN)
+                .putInt(1).putLong(2).putFloat(3.0f)
+                .putFloat(4.0f).putFloat(5.0f).putFloat(6.0f)
+                .putShort((short) 7);
+
+            try (var loader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, getClass().getClassLoader())) {
+                var mapper = (BinarySource.Mapper<?>) loader.loadClass("test.EntryMapper").getField("INSTANCE").get(null);
+                try (var binarySource = BinarySource.wrap(Bytes.wrap(data.array())).order(ByteOrder.BIG_ENDIAN)) {
+                    Record entry = (Record) binarySource.readObject(mapper);
+                    assertEquals("Entry[id=1, header=Header[hash=2, scale=3.0], position=[4.0, 5.0, 6.0], flags=7]", entry.toString());
+                    binarySource.expectEnd();
+                }
+            }
+        } finally {
+            try (var paths = Files.walk(directory)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    @Test
+    void testComponentNames() throws Exception {
+        Path directory = Files.createTempDirectory("struct");
+        try {
+            Path source = directory.resolve("test/Clash.java");
+            Files.createDirectories(source.getParent());
+            Files.writeString(source, """
+                package test;
+
+                import wtf.reversed.toolbox.io.*;
+
+                @Struct
+                public record Clash(int buffer0, int $buffer0, int $$buffer0) {
+                }
+                """);
+            compile(directory, source);
+
+            ByteBuffer data = ByteBuffer.allocate(12).order(ByteOrder.LITTLE_ENDIAN).putInt(1).putInt(2).putInt(3);
+            try (var loader = new URLClassLoader(new URL[]{directory.toUri().toURL()}, getClass().getClassLoader())) {
+                var mapper = (BinarySource.Mapper<?>) loader.loadClass("test.ClashMapper").getField("INSTANCE").get(null);
+                try (var binarySource = BinarySource.wrap(Bytes.wrap(data.array()))) {
+                    Record clash = (Record) binarySource.readObject(mapper);
+                    assertEquals("Clash[buffer0=1, $buffer0=2, $$buffer0=3]", clash.toString());
+                }
+            }
+        } finally {
+            try (var paths = Files.walk(directory)) {
+                paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static void compile(Path directory, Path source) {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        String classPath = String.join(File.pathSeparator,
+            System.getProperty("java.class.path", ""),
+            System.getProperty("jdk.module.path", ""));
+
+        var output = new StringWriter();
+        var task = compiler.getTask(output, null, null,
+            List.of("-classpath", classPath, "-d", directory.toString(), "-s", directory.toString()),
+            null, compiler.getStandardFileManager(null, null, null).getJavaFileObjects(source));
+        task.setProcessors(List.of(new StructProcessor()));
+        assertTrue(task.call(), output::toString);
+    }
+}